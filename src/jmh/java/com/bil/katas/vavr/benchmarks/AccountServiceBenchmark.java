@@ -0,0 +1,76 @@
+package com.bil.katas.vavr.benchmarks;
+
+import com.bil.katas.vavr.account.AccountService;
+import com.bil.katas.vavr.account.BusinessLogger;
+import com.bil.katas.vavr.account.RegistrationFailure;
+import com.bil.katas.vavr.account.TwitterService;
+import com.bil.katas.vavr.account.User;
+import com.bil.katas.vavr.account.UserRepository;
+import com.bil.katas.vavr.account.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountServiceBenchmark {
+    private static final BusinessLogger SILENT_LOGGER = new BusinessLogger() {
+        @Override
+        public void logSuccessRegister(UUID id) {
+        }
+
+        @Override
+        public void logFailureRegister(UUID id, RegistrationFailure failure) {
+        }
+
+        @Override
+        public void logFailureUpdateTwitterAccountId(UUID id, RegistrationFailure failure) {
+        }
+    };
+
+    @Param({"1000", "1000000"})
+    public int users;
+
+    private UserService userService;
+    private AccountService accountService;
+    private UUID knownUser;
+    private UUID unknownUser;
+
+    @Setup
+    public void setUp() {
+        userService = new UserService(UserRepository.ofAll(Populations.users(users)));
+        accountService = new AccountService(userService, new TwitterService(), SILENT_LOGGER);
+        knownUser = Populations.userId(users / 2);
+        unknownUser = Populations.userId(users + 1);
+    }
+
+    @Benchmark
+    public User findById() {
+        return userService.findById(knownUser);
+    }
+
+    @Benchmark
+    public String registerKnownUser() {
+        return accountService.register(knownUser);
+    }
+
+    @Benchmark
+    public String registerUnknownUser() {
+        return accountService.register(unknownUser);
+    }
+}
@@ -0,0 +1,75 @@
+package com.bil.katas.vavr.benchmarks;
+
+import com.bil.katas.vavr.exercises.Person;
+import com.bil.katas.vavr.exercises.Pet;
+import com.bil.katas.vavr.exercises.PetType;
+import io.vavr.collection.Map;
+import io.vavr.collection.Seq;
+import io.vavr.control.Option;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The queries of CollectionsExercises over a generated population.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetDomainBenchmark {
+    @Param({"1000", "100000"})
+    public int persons;
+
+    @Param({"1", "4"})
+    public int petsPerPerson;
+
+    private Seq<Person> people;
+    private Person person;
+
+    @Setup
+    public void setUp() {
+        people = Populations.people(persons, petsPerPerson);
+        person = people.get(persons / 2);
+    }
+
+    @Benchmark
+    public Map<PetType, Integer> getPetTypes() {
+        return person.getPetTypes();
+    }
+
+    @Benchmark
+    public int howManyPeopleHaveCats() {
+        return people.count(p -> p.hasPetType(PetType.CAT));
+    }
+
+    @Benchmark
+    public Seq<PetType> getAllPetTypesOfAllPeople() {
+        return people.flatMap(Person::getPets).map(Pet::getType).distinct();
+    }
+
+    @Benchmark
+    public Option<Person> whoOwnsTheYoungestPet() {
+        return people
+                .filter(Person::isPetPerson)
+                .minBy(Comparator.comparing(p -> p.getPets().minBy(Pet::getAge).map(Pet::getAge).getOrElse(0)));
+    }
+
+    @Benchmark
+    public Option<Double> averagePetAge() {
+        return people.flatMap(Person::getPets).map(Pet::getAge).average();
+    }
+}
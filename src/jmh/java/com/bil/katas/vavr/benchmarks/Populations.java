@@ -0,0 +1,51 @@
+package com.bil.katas.vavr.benchmarks;
+
+import com.bil.katas.vavr.account.User;
+import com.bil.katas.vavr.exercises.Person;
+import com.bil.katas.vavr.exercises.PetType;
+import com.bil.katas.vavr.exercises.PopulationBuilder;
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic data sets shared by the benchmarks.
+ */
+final class Populations {
+    private static final PetType[] PET_TYPES = PetType.values();
+
+    private Populations() {
+    }
+
+    static Seq<User> users(int size) {
+        return Vector.range(0, size).map(Populations::user);
+    }
+
+    static UUID userId(int i) {
+        return new UUID(0x376510ae4e7e11eaL, i);
+    }
+
+    static Seq<Person> people(int size, int petsPerPerson) {
+        Random random = new Random(42);
+        PopulationBuilder population = new PopulationBuilder(size);
+        for (int i = 0; i < size; i++) {
+            Person.Builder person = Person.builder("First" + i, "Last" + i);
+            for (int pet = 0; pet < petsPerPerson; pet++) {
+                person.pet(PET_TYPES[random.nextInt(PET_TYPES.length)], "Pet" + pet, 1 + random.nextInt(15));
+            }
+            population.add(person.build());
+        }
+        return population.build();
+    }
+
+    private static User user(int i) {
+        return User.builder()
+                .id(userId(i))
+                .email("user" + i + "@gmail.com")
+                .name("User " + i)
+                .password("password" + i)
+                .build();
+    }
+}
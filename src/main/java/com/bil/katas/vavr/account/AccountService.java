@@ -1,9 +1,22 @@
 package com.bil.katas.vavr.account;
 
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import io.vavr.concurrent.Future;
 import io.vavr.control.Try;
 import lombok.AllArgsConstructor;
 
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.bil.katas.vavr.account.RegistrationError.*;
+import static com.bil.katas.vavr.account.RegistrationExecutors.daemonThreads;
+import static com.bil.katas.vavr.account.RegistrationStage.*;
 
 @AllArgsConstructor
 public class AccountService {
@@ -11,41 +24,145 @@ public class AccountService {
     private final UserService userService;
     private final TwitterService twitterService;
     private final BusinessLogger businessLogger;
+    private final Executor executor;
+    private final RegistrationMetrics metrics;
+    private final ExpiringCache<UUID, String> registrations;
+
+    public AccountService(UserService userService, TwitterService twitterService, BusinessLogger businessLogger) {
+        this(userService, twitterService, businessLogger, RegistrationExecutors.shared(), RegistrationMetrics.NONE, recentRegistrations());
+    }
+
+    /**
+     * Registrations shared by concurrent callers of {@link #register(UUID)}, successful ones being returned again
+     * for a minute to absorb retries: at most 1000 of them are kept.
+     */
+    public static ExpiringCache<UUID, String> recentRegistrations() {
+        return new ExpiringCache<>(1_000, 1, TimeUnit.MINUTES);
+    }
 
+    /**
+     * Registers the user, unless it is already being registered: the duplicate caller then gets the pending result.
+     * Successful registrations are kept by the registrations cache, failed ones can be retried at once.
+     */
     public String register(UUID id) {
-        return createContext(id)
-                .flatMap(this::registerOnTwitter)
-                .flatMap(this::authenticateOnTwitter)
-                .flatMap(this::tweet)
+        return Try.of(() -> registrations.get(id, () -> registerOnce(id))).getOrNull();
+    }
+
+    /**
+     * Registers the user without blocking the caller: the stages run as a single task of the configured executor.
+     * When the executor rejects it, the future fails at once with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    public Future<String> registerAsync(UUID id) {
+        return Future.of(executor, () -> registerOnce(id));
+    }
+
+    /**
+     * Registers a batch of users, looking them up at once and pipelining the Twitter stages:
+     * each stage runs on its own thread so that one user can be tweeting while the next one authenticates.
+     * Results are keyed by id, in submission order.
+     */
+    public Map<UUID, Try<String>> registerAll(Iterable<UUID> ids) {
+        Seq<UUID> distinctIds = Vector.ofAll(ids).distinct();
+        Map<UUID, User> users = userService.findAllById(distinctIds);
+
+        ExecutorService registerStage = Executors.newSingleThreadExecutor(daemonThreads("registration-register"));
+        ExecutorService authenticateStage = Executors.newSingleThreadExecutor(daemonThreads("registration-authenticate"));
+        ExecutorService tweetStage = Executors.newSingleThreadExecutor(daemonThreads("registration-tweet"));
+        try {
+            Seq<Future<RegistrationContext>> registrations = distinctIds.map(id ->
+                    Future.of(registerStage, () -> createContext(id, users).flatMap(this::registerOnTwitter).get())
+                            .flatMap(context -> Future.of(authenticateStage, () -> authenticateOnTwitter(context).get()))
+                            .flatMap(context -> Future.of(tweetStage, () -> tweet(context).get())));
+
+            return distinctIds.zip(registrations)
+                    .foldLeft(LinkedHashMap.empty(), (results, registration) -> results.put(
+                            registration._1,
+                            complete(registration._1, registration._2.await().getValue().get())));
+        } finally {
+            registerStage.shutdown();
+            authenticateStage.shutdown();
+            tweetStage.shutdown();
+        }
+    }
+
+    /**
+     * Runs the stages, an interrupt rethrown by vavr failing the registration instead of escaping it: the registration
+     * must complete to be released by the registrations cache.
+     */
+    private String registerOnce(UUID id) {
+        Try<RegistrationContext> registration;
+        try {
+            registration = createContext(id)
+                    .flatMap(this::registerOnTwitter)
+                    .flatMap(this::authenticateOnTwitter)
+                    .flatMap(this::tweet);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            registration = Try.failure(RegistrationFailure.of(UNEXPECTED, e));
+        }
+        return complete(id, registration).get();
+    }
+
+    private Try<String> complete(UUID id, Try<RegistrationContext> registration) {
+        return registration
                 .andThen(this::updateTwitterAccountId)
                 .andThen(() -> this.businessLogger.logSuccessRegister(id))
-                .onFailure(e -> this.businessLogger.logFailureRegister(id, e))
-                .map(RegistrationContext::getTweetUrl)
-                .getOrNull();
+                .recoverWith(e -> Try.failure(RegistrationFailure.from(e, UNEXPECTED)))
+                .onFailure(e -> this.businessLogger.logFailureRegister(id, (RegistrationFailure) e))
+                .map(RegistrationContext::getTweetUrl);
     }
 
     private Try<RegistrationContext> createContext(UUID id) {
         return getUser(id).map(RegistrationContext::new);
     }
 
+    private Try<RegistrationContext> createContext(UUID id, Map<UUID, User> users) {
+        long start = System.nanoTime();
+        return record(GET_USER, start, users.get(id).toTry(() -> RegistrationFailure.of(UNKNOWN_USER)))
+                .map(RegistrationContext::new);
+    }
+
     private Try<RegistrationContext> registerOnTwitter(RegistrationContext context) {
-        return Try.of(() -> this.twitterService.register(context.getEmail(), context.getName())).map(context::setAccountId);
+        long start = System.nanoTime();
+        return record(REGISTER_ON_TWITTER, start, failWith(TWITTER_REGISTRATION_FAILED,
+                Try.of(() -> this.twitterService.register(context.getEmail(), context.getName()))))
+                .map(context::setAccountId);
     }
 
     private Try<RegistrationContext> authenticateOnTwitter(RegistrationContext context) {
-        return Try.of(() -> this.twitterService.authenticate(context.getEmail(), context.getPassword())).map(context::setTwitterToken);
+        long start = System.nanoTime();
+        return record(AUTHENTICATE_ON_TWITTER, start, failWith(TWITTER_AUTHENTICATION_FAILED,
+                Try.of(() -> this.twitterService.authenticate(context.getEmail(), context.getPassword()))))
+                .map(context::setTwitterToken);
     }
 
     private Try<RegistrationContext> tweet(RegistrationContext context) {
-        return Try.of(() -> this.twitterService.tweet(context.getTwitterToken(), "Hello I am " + context.getName())).map(context::setTweetUrl);
+        long start = System.nanoTime();
+        return record(TWEET, start, failWith(TWEET_FAILED,
+                Try.of(() -> this.twitterService.tweet(context.getTwitterToken(), "Hello I am " + context.getName()))))
+                .map(context::setTweetUrl);
     }
 
     private void updateTwitterAccountId(RegistrationContext context) {
-        Try.run(() -> this.userService.updateTwitterAccountId(context.getId(), context.getAccountId()));
+        long start = System.nanoTime();
+        record(UPDATE_TWITTER_ACCOUNT_ID, start, Try.run(() -> this.userService.updateTwitterAccountId(context.getId(), context.getAccountId())))
+                .onFailure(e -> this.businessLogger.logFailureUpdateTwitterAccountId(context.getId(),
+                        RegistrationFailure.of(TWITTER_ACCOUNT_ID_NOT_SAVED, e)));
     }
 
     private Try<User> getUser(UUID id) {
-        return Try.of(() -> this.userService.findById(id));
+        long start = System.nanoTime();
+        return record(GET_USER, start, this.userService.find(id).toTry(() -> RegistrationFailure.of(UNKNOWN_USER)));
     }
 
-}
\ No newline at end of file
+    private static <T> Try<T> failWith(RegistrationError error, Try<T> result) {
+        return result.isSuccess() ? result : Try.failure(RegistrationFailure.from(result.getCause(), error));
+    }
+
+    private <T> Try<T> record(RegistrationStage stage, long start, Try<T> result) {
+        this.metrics.record(stage, System.nanoTime() - start, result.isSuccess());
+        return result;
+    }
+}
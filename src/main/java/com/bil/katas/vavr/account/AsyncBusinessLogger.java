@@ -0,0 +1,267 @@
+package com.bil.katas.vavr.account;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link BusinessLogger} appending registration events to a file without blocking the registering threads.
+ * <p/>
+ * Producers claim a slot of a preallocated ring buffer with a CAS and copy the event fields into it, so logging
+ * allocates nothing. A single writer thread drains published slots in batches, formats them and writes them
+ * through a buffered {@link FileChannel}. What happens when the ring is full depends on the {@link Overflow} policy.
+ * <p/>
+ * Closing forbids new claims: events logged afterwards, including by producers waiting for a slot, are counted as
+ * dropped, and every event claimed before is written.
+ */
+public class AsyncBusinessLogger implements BusinessLogger, AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int DEFAULT_SAMPLE_RATE = 16;
+    private static final int MAX_BATCH = 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = 100_000;
+    private static final String SUCCESS = "SUCCESS";
+    private static final String FAILURE = "FAILURE";
+    private static final String UPDATE_FAILURE = "UPDATE_FAILURE";
+    private static final byte[] NEW_LINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    // Set on the claimed sequence by close(): no slot can be claimed afterwards
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    public enum Overflow {
+        /**
+         * Drop the event when the ring is full.
+         */
+        DROP,
+        /**
+         * Wait for the writer to free a slot.
+         */
+        BLOCK,
+        /**
+         * Once the ring is half full keep every failure but only one success out of the sample rate,
+         * drop everything when it is full.
+         */
+        SAMPLE
+    }
+
+    private final Event[] ring;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    private final Overflow overflow;
+    private final int sampleRate;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final Thread writer;
+
+    public AsyncBusinessLogger(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY, Overflow.BLOCK);
+    }
+
+    public AsyncBusinessLogger(Path file, int capacity, Overflow overflow) throws IOException {
+        this(file, capacity, overflow, DEFAULT_SAMPLE_RATE);
+    }
+
+    public AsyncBusinessLogger(Path file, int capacity, Overflow overflow, int sampleRate) throws IOException {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two : " + capacity);
+        }
+        this.ring = new Event[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            ring[slot] = new Event();
+            published.set(slot, -1);
+        }
+        this.overflow = overflow;
+        this.sampleRate = Math.max(sampleRate, 1);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writer = new Thread(this::drain, "business-logger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void logSuccessRegister(UUID id) {
+        publish(SUCCESS, id, null);
+    }
+
+    @Override
+    public void logFailureRegister(UUID id, RegistrationFailure failure) {
+        publish(FAILURE, id, failure);
+    }
+
+    @Override
+    public void logFailureUpdateTwitterAccountId(UUID id, RegistrationFailure failure) {
+        publish(UPDATE_FAILURE, id, failure);
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long written() {
+        return written.sum();
+    }
+
+    public long writeFailures() {
+        return writeFailures.sum();
+    }
+
+    /**
+     * Stops accepting events, writes every event claimed before and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        long claims = claimed.get();
+        while (claims >= 0 && !claimed.compareAndSet(claims, claims | CLOSED)) {
+            claims = claimed.get();
+        }
+        if (claims < 0) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    private void publish(String kind, UUID id, RegistrationFailure failure) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        long sequence;
+        while (true) {
+            sequence = claimed.get();
+            if (sequence < 0) {
+                dropped.increment();
+                return;
+            }
+            long used = sequence - consumed.get();
+            if (used >= ring.length) {
+                if (overflow != Overflow.BLOCK) {
+                    dropped.increment();
+                    return;
+                }
+                LockSupport.parkNanos(1_000);
+            } else if (overflow == Overflow.SAMPLE && failure == null && used >= ring.length >> 1
+                    && sampled.getAndIncrement() % sampleRate != 0) {
+                dropped.increment();
+                return;
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        Event event = ring[(int) sequence & mask];
+        event.kind = kind;
+        event.msb = msb;
+        event.lsb = lsb;
+        event.failure = failure;
+        published.lazySet((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Writes events in claim order until the logger is closed and every slot claimed before is written.
+     * An event failing to be formatted or written is counted as a write failure and skipped.
+     */
+    private void drain() {
+        long next = 0;
+        while (true) {
+            long claims = claimed.get();
+            if (claims < 0 && next == (claims & ~CLOSED)) {
+                break;
+            }
+            int batch = 0;
+            while (batch < MAX_BATCH && published.get((int) next & mask) == next) {
+                Event event = ring[(int) next & mask];
+                try {
+                    write(format(event));
+                    written.increment();
+                } catch (RuntimeException e) {
+                    writeFailures.increment();
+                }
+                event.failure = null;
+                next++;
+                batch++;
+                consumed.lazySet(next);
+            }
+            if (batch == 0) {
+                flush();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        flush();
+    }
+
+    private static String format(Event event) {
+        UUID id = new UUID(event.msb, event.lsb);
+        if (event.failure == null) {
+            return event.kind + " " + id;
+        }
+        StringBuilder line = new StringBuilder(event.kind).append(' ').append(id).append(' ').append(event.failure.getError());
+        Throwable cause = event.failure.getCause();
+        if (cause != null) {
+            line.append(' ').append(cause);
+            for (StackTraceElement element : cause.getStackTrace()) {
+                line.append(System.lineSeparator()).append("\tat ").append(element);
+            }
+        }
+        return line.toString();
+    }
+
+    private void write(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length + NEW_LINE.length > buffer.remaining()) {
+            flush();
+        }
+        if (bytes.length + NEW_LINE.length > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(bytes));
+            writeFully(ByteBuffer.wrap(NEW_LINE));
+            return;
+        }
+        buffer.put(bytes).put(NEW_LINE);
+    }
+
+    private void flush() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException e) {
+            writeFailures.increment();
+        }
+    }
+
+    private static final class Event {
+        private String kind;
+        private long msb;
+        private long lsb;
+        private RegistrationFailure failure;
+    }
+}
@@ -0,0 +1,107 @@
+package com.bil.katas.vavr.account;
+
+import lombok.Data;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Probabilistic set of ids: {@link #mightContain(UUID)} never answers false for an added id, and answers true
+ * for an id never added with about the configured false positive rate, as long as no more ids than expected
+ * are added.
+ * <p/>
+ * Bits are set atomically, so ids can be added while other threads are looking ids up.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1) : " + falsePositiveRate);
+        }
+        int expected = Math.max(expectedInsertions, 1);
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+    }
+
+    public void add(UUID id) {
+        long h1 = hash1(id);
+        long h2 = hash2(id);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (current, set) -> current | set);
+            }
+        }
+        insertions.increment();
+    }
+
+    public boolean mightContain(UUID id) {
+        lookups.increment();
+        long h1 = hash1(id);
+        long h2 = hash2(id);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                definiteMisses.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Stats stats() {
+        long insertions = this.insertions.sum();
+        double estimatedFalsePositiveRate = Math.pow(1 - Math.exp(-(double) hashFunctions * insertions / bitCount), hashFunctions);
+        return new Stats(bitCount, bitCount / 8, hashFunctions, insertions, lookups.sum(), definiteMisses.sum(),
+                estimatedFalsePositiveRate);
+    }
+
+    @Data
+    public static class Stats {
+        private final long bitCount;
+        private final long memoryBytes;
+        private final int hashFunctions;
+        private final long insertions;
+        private final long lookups;
+        private final long definiteMisses;
+        /**
+         * Expected false positive rate given the ids added so far.
+         */
+        private final double estimatedFalsePositiveRate;
+
+        /**
+         * Share of lookups answered without asking the store.
+         */
+        public double definiteMissRate() {
+            return lookups == 0 ? 0 : (double) definiteMisses / lookups;
+        }
+    }
+
+    private static long hash1(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    private static long hash2(UUID id) {
+        return mix(id.getLeastSignificantBits() + 0x9E3779B97F4A7C15L * id.getMostSignificantBits()) | 1;
+    }
+
+    // Stafford variant 13 of the murmur3 64 bits finalizer
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
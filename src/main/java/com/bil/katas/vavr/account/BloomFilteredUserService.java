@@ -0,0 +1,103 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Map;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * {@link UserService} answering lookups of unknown ids from a {@link BloomFilter} of the known ones, without
+ * calling the store. Ids the filter might contain, including its false positives, are looked up in the store.
+ * <p/>
+ * The filter is built from the ids of the store. Users are added through {@link #put(User)} when the service
+ * wraps a {@link UserRepository}, never by putting them in the repository itself which the filter would not see;
+ * users added to another store must be {@link #add(UUID) added} to the filter. Adding more users than expected
+ * raises the false positive rate.
+ */
+public class BloomFilteredUserService extends UserService {
+    private final UserService delegate;
+    private final Option<UserRepository> repository;
+    private final BloomFilter knownIds;
+
+    public BloomFilteredUserService(UserService delegate, Iterable<UUID> knownIds, int expectedUsers, double falsePositiveRate) {
+        this(delegate, Option.none(), knownIds, expectedUsers, falsePositiveRate);
+    }
+
+    private BloomFilteredUserService(UserService delegate, Option<UserRepository> repository, Iterable<UUID> knownIds,
+                                     int expectedUsers, double falsePositiveRate) {
+        super(UserRepository.empty());
+        this.delegate = delegate;
+        this.repository = repository;
+        this.knownIds = new BloomFilter(expectedUsers, falsePositiveRate);
+        knownIds.forEach(this.knownIds::add);
+    }
+
+    /**
+     * Service over the repository, whose users must from then on be {@link #put(User) put} through the service.
+     */
+    public static BloomFilteredUserService of(UserRepository repository, double falsePositiveRate) {
+        return new BloomFilteredUserService(new UserService(repository), Option.some(repository),
+                repository.users().map(User::getId), repository.size(), falsePositiveRate);
+    }
+
+    public static BloomFilteredUserService of(MappedUserService store, double falsePositiveRate) {
+        return new BloomFilteredUserService(store, store.ids(), store.size(), falsePositiveRate);
+    }
+
+    /**
+     * Adds the user to the filter, then puts it in the repository, so it is found as soon as it is stored.
+     *
+     * @throws UnsupportedOperationException when the service does not wrap a {@link UserRepository}
+     */
+    public void put(User user) {
+        UserRepository users = repository.getOrElseThrow(() -> new UnsupportedOperationException("No repository to put users in"));
+        knownIds.add(user.getId());
+        users.put(user);
+    }
+
+    /**
+     * Adds the id of a user added to the store by other means.
+     */
+    public void add(UUID id) {
+        knownIds.add(id);
+    }
+
+    @Override
+    public Option<User> find(UUID id) {
+        return knownIds.mightContain(id) ? delegate.find(id) : Option.none();
+    }
+
+    @Override
+    public User findById(UUID id) throws NoSuchElementException {
+        if (!knownIds.mightContain(id)) {
+            throw new NoSuchElementException("No user with id " + id);
+        }
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Map<UUID, User> findAllById(Iterable<UUID> ids) {
+        return delegate.findAllById(Vector.ofAll(ids).filter(knownIds::mightContain));
+    }
+
+    @Override
+    public User findByEmail(String email) throws NoSuchElementException {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public void updateTwitterAccountId(UUID id, String twitterAccountId) {
+        delegate.updateTwitterAccountId(id, twitterAccountId);
+    }
+
+    @Override
+    public void updateTwitterAccountIds(Map<UUID, String> twitterAccountIds) {
+        delegate.updateTwitterAccountIds(twitterAccountIds);
+    }
+
+    public BloomFilter.Stats stats() {
+        return knownIds.stats();
+    }
+}
@@ -5,5 +5,7 @@ import java.util.UUID;
 public interface BusinessLogger {
     void logSuccessRegister(UUID id);
 
-    void logFailureRegister(UUID id, Throwable exception);
+    void logFailureRegister(UUID id, RegistrationFailure failure);
+
+    void logFailureUpdateTwitterAccountId(UUID id, RegistrationFailure failure);
 }
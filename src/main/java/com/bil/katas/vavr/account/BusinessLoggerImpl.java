@@ -1,5 +1,6 @@
 package com.bil.katas.vavr.account;
 
+import java.util.Arrays;
 import java.util.UUID;
 
 public class BusinessLoggerImpl implements BusinessLogger {
@@ -10,9 +11,22 @@ public class BusinessLoggerImpl implements BusinessLogger {
     }
 
     @Override
-    public void logFailureRegister(UUID id, Throwable exception) {
-        System.out.println("We failed to register the user : " + id);
-        System.out.println("Here is why : " + exception.getMessage());
-        System.out.println("Stack trace : " + exception.getStackTrace().toString());
+    public void logFailureRegister(UUID id, RegistrationFailure failure) {
+        System.out.println("We failed to register the user : " + id + System.lineSeparator() + reason(failure));
     }
-}
\ No newline at end of file
+
+    @Override
+    public void logFailureUpdateTwitterAccountId(UUID id, RegistrationFailure failure) {
+        System.out.println("We failed to save the twitter account id of the user : " + id + System.lineSeparator() + reason(failure));
+    }
+
+    private static String reason(RegistrationFailure failure) {
+        String reason = "Here is why : " + failure.getError() + " " + failure.getMessage();
+        if (failure.getCause() == null) {
+            return reason;
+        }
+        return reason + System.lineSeparator()
+                + "Caused by : " + failure.getCause() + System.lineSeparator()
+                + "Stack trace : " + Arrays.toString(failure.getCause().getStackTrace());
+    }
+}
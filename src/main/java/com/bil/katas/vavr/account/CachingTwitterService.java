@@ -0,0 +1,48 @@
+package com.bil.katas.vavr.account;
+
+import lombok.Data;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TwitterService} reusing the tokens returned by {@link TwitterService#authenticate(String, String)}
+ * until they expire. Concurrent authentications of the same account result in a single upstream call.
+ */
+public class CachingTwitterService extends TwitterService {
+    private final TwitterService delegate;
+    private final ExpiringCache<Credentials, String> tokens;
+
+    public CachingTwitterService(TwitterService delegate, int maximumSize, long ttl, TimeUnit unit) {
+        this(delegate, new ExpiringCache<>(maximumSize, ttl, unit));
+    }
+
+    CachingTwitterService(TwitterService delegate, ExpiringCache<Credentials, String> tokens) {
+        this.delegate = delegate;
+        this.tokens = tokens;
+    }
+
+    @Override
+    public String register(String email, String name) {
+        return delegate.register(email, name);
+    }
+
+    @Override
+    public String authenticate(String email, String password) {
+        return tokens.get(new Credentials(email, password), () -> delegate.authenticate(email, password));
+    }
+
+    @Override
+    public String tweet(String token, String message) {
+        return delegate.tweet(token, message);
+    }
+
+    public ExpiringCache.Stats stats() {
+        return tokens.stats();
+    }
+
+    @Data
+    static class Credentials {
+        private final String email;
+        private final String password;
+    }
+}
@@ -0,0 +1,164 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.CheckedFunction0;
+import io.vavr.control.Option;
+import lombok.Data;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded cache whose entries expire a fixed time after being loaded, evicting the least recently used
+ * entry when full.
+ * <p/>
+ * Concurrent {@link #get(Object, CheckedFunction0)} calls missing on the same key share a single load.
+ * A failed load, even by a fatal error, is thrown to every waiting caller and nothing is cached: the next call
+ * loads again.
+ */
+public class ExpiringCache<K, V> {
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    public ExpiringCache(int maximumSize, long ttl, TimeUnit unit) {
+        this(maximumSize, ttl, unit, System::nanoTime);
+    }
+
+    public ExpiringCache(int maximumSize, long ttl, TimeUnit unit, LongSupplier nanoClock) {
+        this.maximumSize = maximumSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public Option<V> getIfPresent(K key) {
+        long now = nanoClock.getAsLong();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return Option.none();
+            }
+            if (entry.isExpired(now)) {
+                entries.remove(key);
+                expirations.increment();
+                return Option.none();
+            }
+            return Option.some(entry.value);
+        }
+    }
+
+    /**
+     * Returns the cached value or loads it, the first caller running the loader while the others wait for it.
+     */
+    public V get(K key, CheckedFunction0<? extends V> loader) {
+        Option<V> cached = getIfPresent(key);
+        if (cached.isDefined()) {
+            hits.increment();
+            return cached.get();
+        }
+        misses.increment();
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loading.putIfAbsent(key, load);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+        // Another load may have completed between the miss and the claim
+        Option<V> loadedMeanwhile = getIfPresent(key);
+        if (loadedMeanwhile.isDefined()) {
+            loading.remove(key, load);
+            load.complete(loadedMeanwhile.get());
+            return loadedMeanwhile.get();
+        }
+        // Whatever the loader throws, fatal errors included, the claim is released and the waiters answered
+        try {
+            V value = loader.apply();
+            put(key, value);
+            loading.remove(key, load);
+            load.complete(value);
+            return value;
+        } catch (Throwable e) {
+            loadFailures.increment();
+            loading.remove(key, load);
+            load.completeExceptionally(e);
+            throw rethrow(e);
+        }
+    }
+
+    public void put(K key, V value) {
+        long expiresAt = nanoClock.getAsLong() + ttlNanos;
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+            if (entries.size() > maximumSize) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), loadFailures.sum());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> RuntimeException rethrow(Throwable e) throws T {
+        throw (T) e;
+    }
+
+    @Data
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long loadFailures;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import io.vavr.control.Try;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link RegistrationMetrics} keeping, for every stage, call and failure counters and a latency histogram.
+ * Results are read as {@link StageSnapshot}s, either directly, periodically or through JMX.
+ */
+public class HistogramRegistrationMetrics implements RegistrationMetrics, RegistrationMetricsMXBean {
+    public static final String OBJECT_NAME = "com.bil.katas.vavr.account:type=RegistrationMetrics";
+
+    private static final RegistrationStage[] STAGES = RegistrationStage.values();
+
+    private final LongAdder[] calls = new LongAdder[STAGES.length];
+    private final LongAdder[] failures = new LongAdder[STAGES.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[STAGES.length];
+
+    public HistogramRegistrationMetrics() {
+        for (RegistrationStage stage : STAGES) {
+            calls[stage.ordinal()] = new LongAdder();
+            failures[stage.ordinal()] = new LongAdder();
+            latencies[stage.ordinal()] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void record(RegistrationStage stage, long durationNanos, boolean success) {
+        calls[stage.ordinal()].increment();
+        if (!success) {
+            failures[stage.ordinal()].increment();
+        }
+        latencies[stage.ordinal()].record(durationNanos);
+    }
+
+    public StageSnapshot snapshot(RegistrationStage stage) {
+        LatencyHistogram.Snapshot latency = latencies[stage.ordinal()].snapshot();
+        return new StageSnapshot(
+                stage.name(),
+                calls[stage.ordinal()].sum(),
+                failures[stage.ordinal()].sum(),
+                latency.mean(),
+                latency.percentile(50),
+                latency.percentile(90),
+                latency.percentile(99),
+                latency.percentile(99.9),
+                latency.getMax());
+    }
+
+    public Seq<StageSnapshot> snapshot() {
+        return Vector.of(STAGES).map(this::snapshot);
+    }
+
+    @Override
+    public List<StageSnapshot> getStages() {
+        return snapshot().asJava();
+    }
+
+    public ScheduledFuture<?> reportEvery(ScheduledExecutorService scheduler, long period, TimeUnit unit,
+                                          Consumer<Seq<StageSnapshot>> reporter) {
+        return scheduler.scheduleAtFixedRate(() -> reporter.accept(snapshot()), period, period, unit);
+    }
+
+    public Try<ObjectName> registerMBean() {
+        return Try.of(() -> ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(this, new ObjectName(OBJECT_NAME))
+                .getObjectName());
+    }
+}
@@ -0,0 +1,443 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.Iterator;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * {@link UserService} reading users from memory-mapped files, so opening a store does not load it on the heap.
+ * <p/>
+ * A store is a directory holding three files:
+ * <ul>
+ * <li>{@code users.dat}: a header, fixed-size user records, then two open-addressing hash indexes
+ * (by id and by email) holding record numbers</li>
+ * <li>{@code users.heap}: the UTF-8 bytes of emails, names and passwords, referenced by offset and length
+ * from the records</li>
+ * <li>{@code users.log}: twitter account id updates, appended and forced before being written in place, replayed
+ * on open and emptied once the records are forced by {@link #sync()}</li>
+ * </ul>
+ * Each file is mapped as a single buffer, so a store is limited to 2GB of records and 2GB of strings.
+ */
+public class MappedUserService extends UserService implements AutoCloseable {
+    static final String DATA_FILE = "users.dat";
+    static final String HEAP_FILE = "users.heap";
+    static final String LOG_FILE = "users.log";
+
+    private static final int MAGIC = 0x56555352;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private static final int TWITTER_SLOT_SIZE = 32;
+    private static final int RECORD_SIZE = 80;
+    private static final int MSB = 0;
+    private static final int LSB = 8;
+    private static final int EMAIL = 16;
+    private static final int NAME = 24;
+    private static final int PASSWORD = 32;
+    private static final int TWITTER_LENGTH = 40;
+    private static final int TWITTER = 44;
+    private static final int LOG_ENTRY_HEADER_SIZE = 20;
+    private static final int LOG_CHUNK_SIZE = 64 * 1024;
+
+    private final FileChannel dataChannel;
+    private final FileChannel logChannel;
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer heap;
+    private final int count;
+    private final int mask;
+    private final int idIndexStart;
+    private final int emailIndexStart;
+
+    private MappedUserService(FileChannel dataChannel, FileChannel heapChannel, FileChannel logChannel) throws IOException {
+        super(UserRepository.empty());
+        this.dataChannel = dataChannel;
+        this.logChannel = logChannel;
+        this.data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, dataChannel.size());
+        this.heap = heapChannel.map(FileChannel.MapMode.READ_ONLY, 0, heapChannel.size());
+        heapChannel.close();
+
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " user store");
+        }
+        this.count = data.getInt(8);
+        int capacity = data.getInt(12);
+        this.mask = capacity - 1;
+        this.idIndexStart = HEADER_SIZE + count * RECORD_SIZE;
+        this.emailIndexStart = idIndexStart + capacity * 4;
+        replayLog();
+    }
+
+    public static MappedUserService open(Path directory) throws IOException {
+        FileChannel dataChannel = null;
+        FileChannel heapChannel = null;
+        FileChannel logChannel = null;
+        try {
+            dataChannel = FileChannel.open(directory.resolve(DATA_FILE), READ, WRITE);
+            heapChannel = FileChannel.open(directory.resolve(HEAP_FILE), READ);
+            logChannel = FileChannel.open(directory.resolve(LOG_FILE), CREATE, READ, WRITE);
+            return new MappedUserService(dataChannel, heapChannel, logChannel);
+        } catch (IOException | RuntimeException e) {
+            closeAll(e, dataChannel, heapChannel, logChannel);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a new store in the directory, replacing any existing one, and opens it.
+     */
+    public static MappedUserService create(Path directory, Iterable<User> users) throws IOException {
+        Vector<User> all = Vector.ofAll(users);
+        int capacity = UserRepository.tableSizeFor(all.size());
+        long dataSize = HEADER_SIZE + (long) all.size() * RECORD_SIZE + 2L * capacity * 4;
+        if (dataSize > Integer.MAX_VALUE) {
+            throw new IOException("Too many users for a single store : " + all.size());
+        }
+        Files.createDirectories(directory);
+        try (FileChannel dataChannel = FileChannel.open(directory.resolve(DATA_FILE), CREATE, TRUNCATE_EXISTING, READ, WRITE);
+             FileChannel heapChannel = FileChannel.open(directory.resolve(HEAP_FILE), CREATE, TRUNCATE_EXISTING, WRITE)) {
+            MappedByteBuffer data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, dataSize);
+            data.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, all.size()).putInt(12, capacity);
+
+            int idIndexStart = HEADER_SIZE + all.size() * RECORD_SIZE;
+            int emailIndexStart = idIndexStart + capacity * 4;
+            HeapWriter heap = new HeapWriter(heapChannel);
+            for (int record = 0; record < all.size(); record++) {
+                User user = all.get(record);
+                int position = HEADER_SIZE + record * RECORD_SIZE;
+                long msb = user.getId().getMostSignificantBits();
+                long lsb = user.getId().getLeastSignificantBits();
+                data.putLong(position + MSB, msb).putLong(position + LSB, lsb);
+                heap.write(data, position + EMAIL, user.getEmail());
+                heap.write(data, position + NAME, user.getName());
+                heap.write(data, position + PASSWORD, user.getPassword());
+
+                int slot = UserRepository.hash(msb, lsb) & (capacity - 1);
+                while (data.getInt(idIndexStart + slot * 4) != 0
+                        && !all.get(data.getInt(idIndexStart + slot * 4) - 1).getId().equals(user.getId())) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                data.putInt(idIndexStart + slot * 4, record + 1);
+
+                if (user.getEmail() != null) {
+                    slot = UserRepository.spread(user.getEmail().hashCode()) & (capacity - 1);
+                    while (data.getInt(emailIndexStart + slot * 4) != 0
+                            && !user.getEmail().equals(all.get(data.getInt(emailIndexStart + slot * 4) - 1).getEmail())) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    data.putInt(emailIndexStart + slot * 4, record + 1);
+                }
+            }
+            heap.flush();
+            data.force();
+        }
+        Files.deleteIfExists(directory.resolve(LOG_FILE));
+        return open(directory);
+    }
+
+    @Override
+    public User findById(UUID id) throws NoSuchElementException {
+        int record = recordOf(id);
+        if (record < 0) {
+            throw new NoSuchElementException("No user with id " + id);
+        }
+        return user(record);
+    }
+
+    @Override
+    public Option<User> find(UUID id) {
+        int record = recordOf(id);
+        return record < 0 ? Option.none() : Option.some(user(record));
+    }
+
+    @Override
+    public Map<UUID, User> findAllById(Iterable<UUID> ids) {
+        return Vector.ofAll(ids)
+                .filter(id -> recordOf(id) >= 0)
+                .foldLeft(LinkedHashMap.empty(), (found, id) -> found.put(id, user(recordOf(id))));
+    }
+
+    @Override
+    public User findByEmail(String email) throws NoSuchElementException {
+        byte[] searched = email.getBytes(StandardCharsets.UTF_8);
+        int slot = UserRepository.spread(email.hashCode()) & mask;
+        int record;
+        while ((record = data.getInt(emailIndexStart + slot * 4) - 1) >= 0) {
+            if (stringEquals(recordPosition(record) + EMAIL, searched)) {
+                return user(record);
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new NoSuchElementException("No user with email " + email);
+    }
+
+    public Option<String> getTwitterAccountId(UUID id) {
+        int record = recordOf(id);
+        if (record < 0) {
+            throw new NoSuchElementException("No user with id " + id);
+        }
+        int position = recordPosition(record);
+        int length = data.getInt(position + TWITTER_LENGTH);
+        return length == 0 ? Option.none() : Option.some(read(data, position + TWITTER, length));
+    }
+
+    @Override
+    public void updateTwitterAccountId(UUID id, String twitterAccountId) {
+        updateTwitterAccountIds(LinkedHashMap.of(id, twitterAccountId));
+    }
+
+    /**
+     * Appends all the updates to the log in a single write and forces it, then applies them in place.
+     * Nothing is written when one of the ids is unknown or one of the account ids is too long.
+     */
+    @Override
+    public synchronized void updateTwitterAccountIds(Map<UUID, String> twitterAccountIds) {
+        int[] records = new int[twitterAccountIds.size()];
+        byte[][] values = new byte[records.length][];
+        int logSize = 0;
+        int update = 0;
+        for (Tuple2<UUID, String> twitterAccountId : twitterAccountIds) {
+            byte[] bytes = twitterAccountId._2.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > TWITTER_SLOT_SIZE) {
+                throw new IllegalArgumentException("Twitter account id longer than " + TWITTER_SLOT_SIZE + " bytes : " + twitterAccountId._2);
+            }
+            records[update] = recordOf(twitterAccountId._1);
+            if (records[update] < 0) {
+                throw new NoSuchElementException("No user with id " + twitterAccountId._1);
+            }
+            values[update++] = bytes;
+            logSize += LOG_ENTRY_HEADER_SIZE + bytes.length;
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate(logSize);
+        update = 0;
+        for (UUID id : twitterAccountIds.keysIterator()) {
+            entries.putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .putInt(values[update].length)
+                    .put(values[update++]);
+        }
+        entries.flip();
+        try {
+            while (entries.hasRemaining()) {
+                logChannel.write(entries, logChannel.size());
+            }
+            // The mapped records may reach the disk at any time: the log must be durable before they change
+            logChannel.force(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot append to the update log", e);
+        }
+        for (update = 0; update < records.length; update++) {
+            writeTwitterAccountId(records[update], values[update]);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Iterator<UUID> ids() {
+        return Iterator.range(0, count).map(record -> {
+            int position = recordPosition(record);
+            return new UUID(data.getLong(position + MSB), data.getLong(position + LSB));
+        });
+    }
+
+    /**
+     * Forces the records to the storage device, then empties the update log as every update it holds is now
+     * durable in place.
+     */
+    public synchronized void sync() throws IOException {
+        data.force();
+        logChannel.truncate(0);
+        logChannel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        logChannel.close();
+        dataChannel.close();
+    }
+
+    /**
+     * Applies the logged updates, read in bounded chunks, then forces them and empties the log.
+     * A torn entry left by a crash ends the replay.
+     */
+    private void replayLog() throws IOException {
+        ByteBuffer log = ByteBuffer.allocate(LOG_CHUNK_SIZE);
+        long size = logChannel.size();
+        long position = 0;
+        while (position < size) {
+            log.clear();
+            while (log.hasRemaining() && logChannel.read(log, position + log.position()) > 0) {
+                // fill the chunk
+            }
+            log.flip();
+            int replayed = replay(log);
+            if (replayed == 0) {
+                break;
+            }
+            position += replayed;
+        }
+        data.force();
+        logChannel.truncate(0);
+    }
+
+    /**
+     * Applies the complete entries of the chunk, returning their size.
+     */
+    private int replay(ByteBuffer log) {
+        while (log.remaining() >= LOG_ENTRY_HEADER_SIZE) {
+            int entryStart = log.position();
+            UUID id = new UUID(log.getLong(), log.getLong());
+            int length = log.getInt();
+            if (length < 0 || length > TWITTER_SLOT_SIZE || length > log.remaining()) {
+                log.position(entryStart);
+                break;
+            }
+            byte[] bytes = new byte[length];
+            log.get(bytes);
+            int record = recordOf(id);
+            if (record >= 0) {
+                writeTwitterAccountId(record, bytes);
+            }
+        }
+        return log.position();
+    }
+
+    private static void closeAll(Throwable failure, FileChannel... channels) {
+        for (FileChannel channel : channels) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    private void writeTwitterAccountId(int record, byte[] bytes) {
+        int position = recordPosition(record);
+        for (int i = 0; i < bytes.length; i++) {
+            data.put(position + TWITTER + i, bytes[i]);
+        }
+        data.putInt(position + TWITTER_LENGTH, bytes.length);
+    }
+
+    private int recordOf(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int slot = UserRepository.hash(msb, lsb) & mask;
+        int record;
+        while ((record = data.getInt(idIndexStart + slot * 4) - 1) >= 0) {
+            int position = recordPosition(record);
+            if (data.getLong(position + MSB) == msb && data.getLong(position + LSB) == lsb) {
+                return record;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int recordPosition(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private User user(int record) {
+        int position = recordPosition(record);
+        return User.builder()
+                .id(new UUID(data.getLong(position + MSB), data.getLong(position + LSB)))
+                .email(heapString(position + EMAIL))
+                .name(heapString(position + NAME))
+                .password(heapString(position + PASSWORD))
+                .build();
+    }
+
+    private String heapString(int reference) {
+        int length = data.getInt(reference + 4);
+        return length < 0 ? null : read(heap, data.getInt(reference), length);
+    }
+
+    private boolean stringEquals(int reference, byte[] searched) {
+        int offset = data.getInt(reference);
+        if (data.getInt(reference + 4) != searched.length) {
+            return false;
+        }
+        for (int i = 0; i < searched.length; i++) {
+            if (heap.get(offset + i) != searched[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String read(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class HeapWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private long offset;
+
+        private HeapWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Appends the string and writes its reference (offset, length or -1 for null) at the given position.
+         */
+        private void write(ByteBuffer data, int reference, String value) throws IOException {
+            if (value == null) {
+                data.putInt(reference, 0).putInt(reference + 4, -1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (offset + bytes.length > Integer.MAX_VALUE) {
+                throw new IOException("String heap larger than 2GB");
+            }
+            data.putInt(reference, (int) offset).putInt(reference + 4, bytes.length);
+            offset += bytes.length;
+            if (bytes.length > buffer.remaining()) {
+                flush();
+            }
+            if (bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
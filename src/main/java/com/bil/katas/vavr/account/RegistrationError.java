@@ -0,0 +1,23 @@
+package com.bil.katas.vavr.account;
+
+/**
+ * Why a registration failed.
+ */
+public enum RegistrationError {
+    UNKNOWN_USER("No user with this id"),
+    TWITTER_REGISTRATION_FAILED("Twitter refused the registration"),
+    TWITTER_AUTHENTICATION_FAILED("Twitter refused the authentication"),
+    TWEET_FAILED("Twitter refused the tweet"),
+    TWITTER_ACCOUNT_ID_NOT_SAVED("The twitter account id could not be saved"),
+    UNEXPECTED("Unexpected failure");
+
+    private final String description;
+
+    RegistrationError(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.control.Try;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executors suited to {@link AccountService#registerAsync(java.util.UUID)}.
+ * <p/>
+ * Registration stages block on remote calls, so on JDKs shipping virtual threads (21+) each stage gets its own
+ * virtual thread; otherwise a bounded platform pool is used, rejecting registrations once its queue is full.
+ */
+public final class RegistrationExecutors {
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private RegistrationExecutors() {
+    }
+
+    public static ExecutorService shared() {
+        return SharedHolder.EXECUTOR;
+    }
+
+    public static ExecutorService virtualThreadsOrElse(Supplier<ExecutorService> fallback) {
+        return Try.of(() -> (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null))
+                .getOrElse(fallback);
+    }
+
+    public static ExecutorService bounded(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                daemonThreads("registration"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class SharedHolder {
+        private static final ExecutorService EXECUTOR = virtualThreadsOrElse(() ->
+                bounded(Runtime.getRuntime().availableProcessors() * 8, DEFAULT_QUEUE_CAPACITY));
+    }
+}
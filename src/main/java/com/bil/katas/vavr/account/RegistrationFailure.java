@@ -0,0 +1,54 @@
+package com.bil.katas.vavr.account;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Failure of a registration, identified by its {@link RegistrationError}.
+ * <p/>
+ * Failures do not fill in a stack trace: the error code tells where the registration failed, and the upstream
+ * exception, when there is one, is kept as the cause with its own stack trace. Failures without a cause are
+ * shared instances, so rejecting an unknown user allocates nothing. Suppression is disabled too, so
+ * {@link #addSuppressed(Throwable)} is ignored and cannot alter a shared instance.
+ */
+public final class RegistrationFailure extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private static final Map<RegistrationError, RegistrationFailure> SHARED = new EnumMap<>(RegistrationError.class);
+
+    static {
+        for (RegistrationError error : RegistrationError.values()) {
+            SHARED.put(error, new RegistrationFailure(error, null));
+        }
+    }
+
+    private final RegistrationError error;
+
+    private RegistrationFailure(RegistrationError error, Throwable cause) {
+        super(error.getDescription(), cause, false, false);
+        this.error = error;
+    }
+
+    public static RegistrationFailure of(RegistrationError error) {
+        return SHARED.get(error);
+    }
+
+    public static RegistrationFailure of(RegistrationError error, Throwable cause) {
+        return new RegistrationFailure(error, cause);
+    }
+
+    /**
+     * The failure itself when it already is a {@link RegistrationFailure}, otherwise wrapped with the given error.
+     */
+    public static RegistrationFailure from(Throwable failure, RegistrationError error) {
+        return failure instanceof RegistrationFailure ? (RegistrationFailure) failure : of(error, failure);
+    }
+
+    public RegistrationError getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return getCause() == null ? error.name() : error.name() + " " + getCause();
+    }
+}
@@ -0,0 +1,12 @@
+package com.bil.katas.vavr.account;
+
+/**
+ * Receives the outcome and duration of every stage run by {@link AccountService}.
+ * Called on the registration path, implementations must be cheap and thread-safe.
+ */
+public interface RegistrationMetrics {
+    RegistrationMetrics NONE = (stage, durationNanos, success) -> {
+    };
+
+    void record(RegistrationStage stage, long durationNanos, boolean success);
+}
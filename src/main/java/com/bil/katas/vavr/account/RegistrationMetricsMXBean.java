@@ -0,0 +1,7 @@
+package com.bil.katas.vavr.account;
+
+import java.util.List;
+
+public interface RegistrationMetricsMXBean {
+    List<StageSnapshot> getStages();
+}
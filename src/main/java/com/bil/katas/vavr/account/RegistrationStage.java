@@ -0,0 +1,5 @@
+package com.bil.katas.vavr.account;
+
+public enum RegistrationStage {
+    GET_USER, REGISTER_ON_TWITTER, AUTHENTICATE_ON_TWITTER, TWEET, UPDATE_TWITTER_ACCOUNT_ID
+}
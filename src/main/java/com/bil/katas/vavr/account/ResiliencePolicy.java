@@ -0,0 +1,68 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Set;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+import static com.bil.katas.vavr.account.RegistrationStage.AUTHENTICATE_ON_TWITTER;
+
+/**
+ * Settings of a {@link ResilientTwitterService}.
+ */
+@Data
+@Builder
+public class ResiliencePolicy {
+    /**
+     * Calls running at once, including hedged ones, before new calls are rejected.
+     */
+    @Builder.Default
+    private final int maxConcurrentCalls = 64;
+    /**
+     * Sustained rate of upstream calls, retries and hedged calls included.
+     */
+    @Builder.Default
+    private final double permitsPerSecond = 100;
+    /**
+     * Calls that can be made at once after an idle period.
+     */
+    @Builder.Default
+    private final int burst = 10;
+    /**
+     * How long a call may wait for the rate limiter before being rejected.
+     */
+    @Builder.Default
+    private final Duration rateLimitTimeout = Duration.ofMillis(500);
+    /**
+     * How long an attempt may take, hedged call included.
+     */
+    @Builder.Default
+    private final Duration timeout = Duration.ofSeconds(2);
+    /**
+     * Attempts made by idempotent stages, the first one included.
+     */
+    @Builder.Default
+    private final int maxAttempts = 3;
+    /**
+     * Base of the exponential backoff between attempts, each wait being drawn at random below it.
+     */
+    @Builder.Default
+    private final Duration retryBackoff = Duration.ofMillis(50);
+    /**
+     * Delay after which a second call is made when the first one has not answered, zero disabling hedging.
+     * Only idempotent stages are hedged.
+     */
+    @Builder.Default
+    private final Duration hedgeDelay = Duration.ZERO;
+    /**
+     * Stages which can safely be called more than once: registering or tweeting twice is visible.
+     */
+    @Builder.Default
+    private final Set<RegistrationStage> idempotentStages = HashSet.of(AUTHENTICATE_ON_TWITTER);
+
+    public static ResiliencePolicy defaults() {
+        return builder().build();
+    }
+}
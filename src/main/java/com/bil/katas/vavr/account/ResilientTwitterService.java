@@ -0,0 +1,217 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.control.Try;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bil.katas.vavr.account.RegistrationStage.*;
+
+/**
+ * {@link TwitterService} protecting the caller from a slow or overloaded upstream, as configured by a
+ * {@link ResiliencePolicy}:
+ * <ul>
+ * <li>a bulkhead rejects calls once too many are running: a call keeps its permit until Twitter answers, even
+ * after it timed out</li>
+ * <li>a token bucket keeps under the upstream rate limit, waiting a bounded time for a permit</li>
+ * <li>every attempt runs on the executor, by default one dedicated to Twitter calls, and is interrupted when it
+ * times out</li>
+ * <li>idempotent stages are retried, unless rejected, with jittered exponential backoff, and may be hedged: a second call is
+ * made when the first one is slow and the first answer wins</li>
+ * </ul>
+ * Calls failing for good throw, to be turned into a failed {@link Try} by the caller: rejections as
+ * {@link RejectedExecutionException}, interrupts too with the interrupt status restored, timeouts as
+ * {@link TimeoutException}, other errors as thrown upstream.
+ */
+public class ResilientTwitterService extends TwitterService {
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+
+    private final TwitterService delegate;
+    private final ResiliencePolicy policy;
+    private final Executor executor;
+    private final Semaphore bulkhead;
+    private final TokenBucket rateLimiter;
+
+    /**
+     * Runs calls on their own executor: stages waiting for Twitter must not wait for a thread of their own pool.
+     */
+    public ResilientTwitterService(TwitterService delegate, ResiliencePolicy policy) {
+        this(delegate, policy, callExecutor(policy));
+    }
+
+    public ResilientTwitterService(TwitterService delegate, ResiliencePolicy policy, Executor executor) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.executor = executor;
+        this.bulkhead = new Semaphore(policy.getMaxConcurrentCalls());
+        this.rateLimiter = new TokenBucket(policy.getPermitsPerSecond(), policy.getBurst(), System::nanoTime);
+    }
+
+    @Override
+    public String register(String email, String name) {
+        return call(REGISTER_ON_TWITTER, () -> delegate.register(email, name)).get();
+    }
+
+    @Override
+    public String authenticate(String email, String password) {
+        return call(AUTHENTICATE_ON_TWITTER, () -> delegate.authenticate(email, password)).get();
+    }
+
+    @Override
+    public String tweet(String token, String message) {
+        return call(TWEET, () -> delegate.tweet(token, message)).get();
+    }
+
+    /**
+     * Calls that can still start before the bulkhead rejects new ones.
+     */
+    public int availableCalls() {
+        return bulkhead.availablePermits();
+    }
+
+    /**
+     * Executor able to run every call the bulkhead lets through, hedges included as they hold a permit too:
+     * a virtual thread per call when available, otherwise a pool of {@code maxConcurrentCalls} threads stopped
+     * when idle.
+     */
+    static ExecutorService callExecutor(ResiliencePolicy policy) {
+        return RegistrationExecutors.virtualThreadsOrElse(() -> {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    policy.getMaxConcurrentCalls(), policy.getMaxConcurrentCalls(),
+                    60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    RegistrationExecutors.daemonThreads("twitter-call"));
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        });
+    }
+
+    private Try<String> call(RegistrationStage stage, Callable<String> call) {
+        boolean idempotent = policy.getIdempotentStages().contains(stage);
+        int attempts = idempotent ? Math.max(policy.getMaxAttempts(), 1) : 1;
+        Try<String> result = attempt(call, idempotent && !policy.getHedgeDelay().isZero());
+        for (int attempt = 1; attempt < attempts && retryable(result); attempt++) {
+            long backoff = policy.getRetryBackoff().toNanos() << Math.min(attempt - 1, 20);
+            try {
+                TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Try.failure(interrupted(e));
+            }
+            result = attempt(call, idempotent && !policy.getHedgeDelay().isZero());
+        }
+        return result;
+    }
+
+    /**
+     * Failed calls are retried, unless the bulkhead or the rate limiter rejected them: retrying would only add load.
+     */
+    private static boolean retryable(Try<String> result) {
+        return result.isFailure() && !(result.getCause() instanceof RejectedExecutionException);
+    }
+
+    private Try<String> attempt(Callable<String> call, boolean hedged) {
+        BlockingQueue<Future<String>> answers = new LinkedBlockingQueue<>();
+        List<Future<String>> started = new ArrayList<>(2);
+        try {
+            long deadline = System.nanoTime() + policy.getTimeout().toNanos();
+            started.add(start(answers, call));
+            Future<String> answered = null;
+            if (hedged) {
+                answered = answers.poll(Math.min(policy.getHedgeDelay().toNanos(), deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (answered == null) {
+                    Try.of(() -> start(answers, call)).forEach(started::add);
+                }
+            }
+            for (int pending = started.size(); ; pending--) {
+                if (answered == null) {
+                    answered = answers.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+                if (answered == null) {
+                    return Try.failure(new TimeoutException("Twitter did not answer within " + policy.getTimeout()));
+                }
+                Try<String> result = Try.of(answered::get)
+                        .recoverWith(ExecutionException.class, e -> Try.failure(e.getCause() instanceof InterruptedException
+                                ? interrupted((InterruptedException) e.getCause())
+                                : e.getCause()));
+                if (result.isSuccess() || pending == 1) {
+                    return result;
+                }
+                answered = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Try.failure(interrupted(e));
+        } catch (RejectedExecutionException e) {
+            return Try.failure(e);
+        } finally {
+            started.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Interrupts fail the call as rejected: vavr rethrows an {@link InterruptedException} given to {@link Try#failure}
+     * instead of holding it.
+     */
+    private static RejectedExecutionException interrupted(InterruptedException e) {
+        return new RejectedExecutionException("Interrupted while calling Twitter", e);
+    }
+
+    private Future<String> start(BlockingQueue<Future<String>> answers, Callable<String> call) throws InterruptedException {
+        if (!bulkhead.tryAcquire()) {
+            throw new RejectedExecutionException("Too many concurrent Twitter calls : " + policy.getMaxConcurrentCalls());
+        }
+        // NEW until the call starts running or the task is cancelled before it does, whichever releases the permit
+        AtomicInteger state = new AtomicInteger(NEW);
+        FutureTask<String> task = new FutureTask<String>(() -> {
+            if (!state.compareAndSet(NEW, RUNNING)) {
+                throw new CancellationException();
+            }
+            try {
+                return call.call();
+            } finally {
+                bulkhead.release();
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (state.compareAndSet(NEW, ABANDONED)) {
+                    bulkhead.release();
+                }
+                answers.add(this);
+            }
+        };
+        try {
+            long wait = rateLimiter.reserve(policy.getRateLimitTimeout().toNanos());
+            if (wait < 0) {
+                throw new RejectedExecutionException("Twitter rate limit exceeded : " + policy.getPermitsPerSecond() + " calls per second");
+            }
+            TimeUnit.NANOSECONDS.sleep(wait);
+            executor.execute(task);
+            return task;
+        } catch (InterruptedException | RuntimeException e) {
+            if (state.compareAndSet(NEW, ABANDONED)) {
+                bulkhead.release();
+            }
+            throw e;
+        }
+    }
+}
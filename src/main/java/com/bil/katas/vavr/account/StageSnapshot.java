@@ -0,0 +1,16 @@
+package com.bil.katas.vavr.account;
+
+import lombok.Data;
+
+@Data
+public class StageSnapshot {
+    private final String stage;
+    private final long calls;
+    private final long failures;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+}
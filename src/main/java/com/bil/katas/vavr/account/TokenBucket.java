@@ -0,0 +1,47 @@
+package com.bil.katas.vavr.account;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter refilling permits continuously, up to a burst.
+ * <p/>
+ * Permits can be reserved ahead of time: the bucket then goes negative and the caller is told how long to wait
+ * before using its permit, so waiting callers are served in reservation order.
+ */
+class TokenBucket {
+    private final double permitsPerNano;
+    private final double burst;
+    private final LongSupplier nanoClock;
+
+    private double permits;
+    private long refilledAt;
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+        this.permits = burst;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Reserves a permit if it is available within the maximum wait.
+     *
+     * @return the nanoseconds to wait before using the permit, or -1 when none was reserved
+     */
+    synchronized long reserve(long maxWaitNanos) {
+        long now = nanoClock.getAsLong();
+        permits = Math.min(burst, permits + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        if (permits >= 1) {
+            permits -= 1;
+            return 0;
+        }
+        long wait = (long) Math.ceil((1 - permits) / permitsPerNano);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        permits -= 1;
+        return wait;
+    }
+}
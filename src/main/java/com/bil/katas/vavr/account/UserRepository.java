@@ -0,0 +1,235 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * In-memory user store indexed by id and by email.
+ * <p/>
+ * Users are kept in a dense array and both indexes are open-addressing tables (linear probing)
+ * holding positions in that array. The id index stores the UUID as two primitive longs so a lookup
+ * never allocates nor calls {@link UUID#equals(Object)}.
+ * Not thread-safe for concurrent writes.
+ */
+public class UserRepository {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int EMPTY = 0;
+
+    private User[] users;
+    private int size;
+
+    private long[] idKeys;
+    private int[] idSlots;
+    private int[] emailSlots;
+    private int mask;
+
+    public UserRepository() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public UserRepository(int expectedSize) {
+        int tableSize = tableSizeFor(expectedSize);
+        this.users = new User[Math.max(expectedSize, 1)];
+        allocateTables(tableSize);
+    }
+
+    public static UserRepository empty() {
+        return new UserRepository();
+    }
+
+    public static UserRepository of(User... users) {
+        return ofAll(Arrays.asList(users));
+    }
+
+    public static UserRepository ofAll(Iterable<User> users) {
+        UserRepository repository = users instanceof Collection
+                ? new UserRepository(((Collection<User>) users).size())
+                : new UserRepository();
+        users.forEach(repository::put);
+        return repository;
+    }
+
+    public User findById(UUID id) throws NoSuchElementException {
+        int position = positionOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (position < 0) {
+            throw new NoSuchElementException("No user with id " + id);
+        }
+        return users[position];
+    }
+
+    public Option<User> find(UUID id) {
+        int position = positionOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return position < 0 ? Option.none() : Option.some(users[position]);
+    }
+
+    public User findByEmail(String email) throws NoSuchElementException {
+        int position = positionOfEmail(email);
+        if (position < 0) {
+            throw new NoSuchElementException("No user with email " + email);
+        }
+        return users[position];
+    }
+
+    public boolean containsId(UUID id) {
+        return positionOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Seq<User> users() {
+        return Vector.of(Arrays.copyOf(users, size));
+    }
+
+    /**
+     * Adds the user or replaces the one having the same id.
+     * When several users share an email, the email index points to the last one put.
+     */
+    public void put(User user) {
+        long msb = user.getId().getMostSignificantBits();
+        long lsb = user.getId().getLeastSignificantBits();
+        int slot = idSlotFor(msb, lsb);
+
+        if (idSlots[slot] != EMPTY) {
+            int position = idSlots[slot] - 1;
+            User previous = users[position];
+            users[position] = user;
+            if (!sameEmail(previous.getEmail(), user.getEmail())) {
+                removeEmail(previous.getEmail(), position);
+                putEmail(user.getEmail(), position);
+            }
+            return;
+        }
+        if (size + 1 > idSlots.length >> 1) {
+            resize(idSlots.length << 1);
+            slot = idSlotFor(msb, lsb);
+        }
+        if (size == users.length) {
+            users = Arrays.copyOf(users, size << 1);
+        }
+        int position = size++;
+        users[position] = user;
+        idKeys[slot << 1] = msb;
+        idKeys[(slot << 1) + 1] = lsb;
+        idSlots[slot] = position + 1;
+        putEmail(user.getEmail(), position);
+    }
+
+    private int positionOf(long msb, long lsb) {
+        int slot = idSlotFor(msb, lsb);
+        return idSlots[slot] - 1;
+    }
+
+    private int idSlotFor(long msb, long lsb) {
+        int slot = hash(msb, lsb) & mask;
+        while (idSlots[slot] != EMPTY
+                && (idKeys[slot << 1] != msb || idKeys[(slot << 1) + 1] != lsb)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int positionOfEmail(String email) {
+        if (email == null) {
+            return -1;
+        }
+        int slot = spread(email.hashCode()) & mask;
+        while (emailSlots[slot] != EMPTY) {
+            int position = emailSlots[slot] - 1;
+            if (email.equals(users[position].getEmail())) {
+                return position;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void putEmail(String email, int position) {
+        if (email == null) {
+            return;
+        }
+        int slot = spread(email.hashCode()) & mask;
+        while (emailSlots[slot] != EMPTY && !email.equals(users[emailSlots[slot] - 1].getEmail())) {
+            slot = (slot + 1) & mask;
+        }
+        emailSlots[slot] = position + 1;
+    }
+
+    private void removeEmail(String email, int position) {
+        if (email == null) {
+            return;
+        }
+        int slot = spread(email.hashCode()) & mask;
+        while (emailSlots[slot] != position + 1) {
+            if (emailSlots[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Backward shift deletion keeps probe sequences intact without tombstones
+        int hole = slot;
+        for (int next = (hole + 1) & mask; emailSlots[next] != EMPTY; next = (next + 1) & mask) {
+            int home = spread(users[emailSlots[next] - 1].getEmail().hashCode()) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                emailSlots[hole] = emailSlots[next];
+                hole = next;
+            }
+        }
+        emailSlots[hole] = EMPTY;
+    }
+
+    private void resize(int tableSize) {
+        allocateTables(tableSize);
+        for (int position = 0; position < size; position++) {
+            User user = users[position];
+            long msb = user.getId().getMostSignificantBits();
+            long lsb = user.getId().getLeastSignificantBits();
+            int slot = idSlotFor(msb, lsb);
+            idKeys[slot << 1] = msb;
+            idKeys[(slot << 1) + 1] = lsb;
+            idSlots[slot] = position + 1;
+            putEmail(user.getEmail(), position);
+        }
+    }
+
+    private void allocateTables(int tableSize) {
+        this.idKeys = new long[tableSize << 1];
+        this.idSlots = new int[tableSize];
+        this.emailSlots = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    private static boolean sameEmail(String left, String right) {
+        return left == null ? right == null : left.equals(right);
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int tableSize = DEFAULT_CAPACITY;
+        while (tableSize >> 1 < expectedSize) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+    static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,30 +1,65 @@
 package com.bil.katas.vavr.account;
 
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
 import io.vavr.collection.Vector;
+import io.vavr.control.Option;
 
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
 public class UserService {
-    private Vector<User> repository = Vector.of(
-            User.builder()
-                    .id(UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88125"))
-                    .email("bud.spencer@gmail.com")
-                    .name("Bud Spencer")
-                    .password("OJljaefp0')")
-                    .build(),
-            User.builder()
-                    .id(UUID.fromString("37651306-4e7e-11ea-b77f-2e728ce88125"))
-                    .email("terrence.hill@gmail.com")
-                    .name("Terrence Hill")
-                    .password("àu__udsv09Ll")
-                    .build());
+    private final UserRepository repository;
+
+    public UserService() {
+        this(UserRepository.of(
+                User.builder()
+                        .id(UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88125"))
+                        .email("bud.spencer@gmail.com")
+                        .name("Bud Spencer")
+                        .password("OJljaefp0')")
+                        .build(),
+                User.builder()
+                        .id(UUID.fromString("37651306-4e7e-11ea-b77f-2e728ce88125"))
+                        .email("terrence.hill@gmail.com")
+                        .name("Terrence Hill")
+                        .password("àu__udsv09Ll")
+                        .build()));
+    }
+
+    public UserService(UserRepository repository) {
+        this.repository = repository;
+    }
 
     public User findById(UUID id) throws NoSuchElementException {
-        return repository.filter(p -> id.equals(p.getId())).single();
+        return repository.findById(id);
+    }
+
+    /**
+     * Looks the user up without throwing when it is unknown.
+     */
+    public Option<User> find(UUID id) {
+        return repository.find(id);
+    }
+
+    public Map<UUID, User> findAllById(Iterable<UUID> ids) {
+        return Vector.ofAll(ids)
+                .filter(repository::containsId)
+                .foldLeft(LinkedHashMap.empty(), (found, id) -> found.put(id, repository.findById(id)));
+    }
+
+    public User findByEmail(String email) throws NoSuchElementException {
+        return repository.findByEmail(email);
     }
 
     public void updateTwitterAccountId(UUID id, String twitterAccountId) {
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves several twitter account ids at once, stopping at the first failure.
+     */
+    public void updateTwitterAccountIds(Map<UUID, String> twitterAccountIds) {
+        twitterAccountIds.forEach(this::updateTwitterAccountId);
+    }
+}
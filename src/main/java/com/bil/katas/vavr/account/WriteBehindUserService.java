@@ -0,0 +1,142 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.bil.katas.vavr.account.RegistrationExecutors.daemonThreads;
+
+/**
+ * {@link UserService} queuing twitter account id updates and saving them in batches on a background thread.
+ * <p/>
+ * Repeated updates of the same user are coalesced, only the last account id being saved. A batch is flushed
+ * once it holds the maximum batch size or when the flush interval elapses, whichever comes first. At most one
+ * flush is queued at a time, and when twice the maximum batch size is pending the updating caller flushes
+ * itself, so updates wait instead of piling up when the store falls behind.
+ * Lookups are not affected and go straight to the delegate.
+ * <p/>
+ * When a batch fails, its updates are retried one at a time and the failing ones are reported to the
+ * {@link BusinessLogger}, they are not retried again.
+ */
+public class WriteBehindUserService extends UserService implements AutoCloseable {
+    private final UserService delegate;
+    private final BusinessLogger businessLogger;
+    private final int maximumBatchSize;
+    private final ScheduledExecutorService flusher;
+
+    private final Object lock = new Object();
+    private java.util.LinkedHashMap<UUID, String> pending = new java.util.LinkedHashMap<>();
+    private boolean flushScheduled;
+    private boolean closed;
+
+    public WriteBehindUserService(UserService delegate, BusinessLogger businessLogger,
+                                  int maximumBatchSize, long flushInterval, TimeUnit unit) {
+        super(UserRepository.empty());
+        this.delegate = delegate;
+        this.businessLogger = businessLogger;
+        this.maximumBatchSize = maximumBatchSize;
+        this.flusher = new ScheduledThreadPoolExecutor(1, daemonThreads("user-write-behind"));
+        this.flusher.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, unit);
+    }
+
+    @Override
+    public User findById(UUID id) throws NoSuchElementException {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Option<User> find(UUID id) {
+        return delegate.find(id);
+    }
+
+    @Override
+    public Map<UUID, User> findAllById(Iterable<UUID> ids) {
+        return delegate.findAllById(ids);
+    }
+
+    @Override
+    public User findByEmail(String email) throws NoSuchElementException {
+        return delegate.findByEmail(email);
+    }
+
+    /**
+     * Queues the update and returns immediately, unless the pending updates overflow: they are then flushed first.
+     *
+     * @throws RejectedExecutionException once closed
+     */
+    @Override
+    public void updateTwitterAccountId(UUID id, String twitterAccountId) {
+        boolean scheduleFlush = false;
+        boolean overflowing;
+        synchronized (lock) {
+            if (closed) {
+                throw new RejectedExecutionException("Write-behind user service is closed");
+            }
+            pending.put(id, twitterAccountId);
+            if (pending.size() >= maximumBatchSize && !flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush = true;
+            }
+            overflowing = pending.size() - maximumBatchSize >= maximumBatchSize;
+        }
+        if (overflowing) {
+            flush();
+        } else if (scheduleFlush) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Closed meanwhile: close flushes the update
+            }
+        }
+    }
+
+    public int pendingUpdates() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Saves every update queued so far, returning once they have been saved or reported as failed.
+     */
+    public synchronized void flush() {
+        Map<UUID, String> batch;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = LinkedHashMap.ofAll(pending);
+            pending = new java.util.LinkedHashMap<>();
+        }
+        Try.run(() -> delegate.updateTwitterAccountIds(batch))
+                .onFailure(e -> batch.forEach(this::updateAlone));
+    }
+
+    /**
+     * Stops accepting updates and flushes the pending ones.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        flusher.shutdown();
+        Try.run(() -> flusher.awaitTermination(1, TimeUnit.MINUTES));
+        flush();
+    }
+
+    private void updateAlone(UUID id, String twitterAccountId) {
+        Try.run(() -> delegate.updateTwitterAccountId(id, twitterAccountId))
+                .onFailure(e -> businessLogger.logFailureUpdateTwitterAccountId(id,
+                        RegistrationFailure.of(RegistrationError.TWITTER_ACCOUNT_ID_NOT_SAVED, e)));
+    }
+}
@@ -0,0 +1,220 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.control.Option;
+
+import java.util.Arrays;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.function.ToIntFunction;
+
+/**
+ * Aggregations over an int attribute, such as {@link Pet#getAge()}, computed in a single pass without boxing.
+ * <p/>
+ * Unlike {@code seq.map(Pet::getAge).min()} or {@code seq.minBy(Comparator.comparing(Pet::getAge))}, values are
+ * never boxed and no intermediate collection or {@link Option} is created per element.
+ */
+public final class IntAggregations {
+
+    /**
+     * Largest value {@link #histogram(Iterable, ToIntFunction)} accepts, bounding its array to 64MB.
+     */
+    public static final int MAX_HISTOGRAM_VALUE = (1 << 24) - 1;
+
+    private IntAggregations() {
+    }
+
+    public static <T> OptionalInt minInt(Iterable<? extends T> items, ToIntFunction<? super T> attribute) {
+        boolean found = false;
+        int min = Integer.MAX_VALUE;
+        for (T item : items) {
+            min = Math.min(min, attribute.applyAsInt(item));
+            found = true;
+        }
+        return found ? OptionalInt.of(min) : OptionalInt.empty();
+    }
+
+    public static <T> OptionalInt maxInt(Iterable<? extends T> items, ToIntFunction<? super T> attribute) {
+        boolean found = false;
+        int max = Integer.MIN_VALUE;
+        for (T item : items) {
+            max = Math.max(max, attribute.applyAsInt(item));
+            found = true;
+        }
+        return found ? OptionalInt.of(max) : OptionalInt.empty();
+    }
+
+    public static <T> long sumInt(Iterable<? extends T> items, ToIntFunction<? super T> attribute) {
+        long sum = 0;
+        for (T item : items) {
+            sum += attribute.applyAsInt(item);
+        }
+        return sum;
+    }
+
+    public static <T> OptionalDouble averageInt(Iterable<? extends T> items, ToIntFunction<? super T> attribute) {
+        long sum = 0;
+        long count = 0;
+        for (T item : items) {
+            sum += attribute.applyAsInt(item);
+            count++;
+        }
+        return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum / count);
+    }
+
+    /**
+     * The first item having the minimum value.
+     */
+    public static <T> Option<T> argMinInt(Iterable<? extends T> items, ToIntFunction<? super T> attribute) {
+        T argMin = null;
+        int min = Integer.MAX_VALUE;
+        for (T item : items) {
+            int value = attribute.applyAsInt(item);
+            if (argMin == null || value < min) {
+                argMin = item;
+                min = value;
+            }
+        }
+        return Option.of(argMin);
+    }
+
+    /**
+     * The first item having the maximum value.
+     */
+    public static <T> Option<T> argMaxInt(Iterable<? extends T> items, ToIntFunction<? super T> attribute) {
+        T argMax = null;
+        int max = Integer.MIN_VALUE;
+        for (T item : items) {
+            int value = attribute.applyAsInt(item);
+            if (argMax == null || value > max) {
+                argMax = item;
+                max = value;
+            }
+        }
+        return Option.of(argMax);
+    }
+
+    /**
+     * The first person owning a pet of the minimum age, people without pets being ignored.
+     */
+    public static Option<Person> youngestPetOwner(Iterable<Person> people) {
+        Person owner = null;
+        int youngest = Integer.MAX_VALUE;
+        for (Person person : people) {
+            for (Pet pet : person.getPets()) {
+                if (owner == null || pet.getAge() < youngest) {
+                    owner = person;
+                    youngest = pet.getAge();
+                }
+            }
+        }
+        return Option.of(owner);
+    }
+
+    /**
+     * The first person owning a pet of the maximum age, people without pets being ignored.
+     */
+    public static Option<Person> oldestPetOwner(Iterable<Person> people) {
+        Person owner = null;
+        int oldest = Integer.MIN_VALUE;
+        for (Person person : people) {
+            for (Pet pet : person.getPets()) {
+                if (owner == null || pet.getAge() > oldest) {
+                    owner = person;
+                    oldest = pet.getAge();
+                }
+            }
+        }
+        return Option.of(owner);
+    }
+
+    /**
+     * Count of items per value: {@code histogram[value]}, up to the maximum value.
+     *
+     * @throws IllegalArgumentException on a negative value or a value above {@link #MAX_HISTOGRAM_VALUE}
+     */
+    public static <T> int[] histogram(Iterable<? extends T> items, ToIntFunction<? super T> attribute) {
+        int[] histogram = new int[32];
+        int length = 0;
+        for (T item : items) {
+            int value = attribute.applyAsInt(item);
+            if (value < 0 || value > MAX_HISTOGRAM_VALUE) {
+                throw new IllegalArgumentException("Value out of [0, " + MAX_HISTOGRAM_VALUE + "] : " + value);
+            }
+            if (value >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, Math.min(Math.max(value + 1, histogram.length << 1), MAX_HISTOGRAM_VALUE + 1));
+            }
+            histogram[value]++;
+            length = Math.max(length, value + 1);
+        }
+        return Arrays.copyOf(histogram, length);
+    }
+
+    /**
+     * The nearest-rank percentile of the values, percentile being in {@code (0, 100]}.
+     * Values are counted in a histogram as long as they are small enough for their number; once one is not, they
+     * are all buffered and sorted instead.
+     *
+     * @throws IllegalArgumentException on a percentile out of {@code (0, 100]} or a negative value
+     */
+    public static <T> OptionalInt percentileInt(Iterable<? extends T> items, ToIntFunction<? super T> attribute, double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile out of (0, 100] : " + percentile);
+        }
+        int[] histogram = new int[32];
+        int[] values = null;
+        int count = 0;
+        for (T item : items) {
+            int value = attribute.applyAsInt(item);
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value : " + value);
+            }
+            if (values == null && value >= histogram.length) {
+                // The histogram stays within four ints per value, or 1024 ints for a few values
+                if (value <= MAX_HISTOGRAM_VALUE && value < Math.max(1024, 4L * (count + 1))) {
+                    histogram = Arrays.copyOf(histogram, Math.min(Math.max(value + 1, histogram.length << 1), MAX_HISTOGRAM_VALUE + 1));
+                } else {
+                    values = spill(histogram, count);
+                }
+            }
+            if (values == null) {
+                histogram[value]++;
+            } else {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count << 1);
+                }
+                values[count] = value;
+            }
+            count++;
+        }
+        if (count == 0) {
+            return OptionalInt.empty();
+        }
+        int rank = (int) Math.max(1, Math.ceil(percentile / 100 * count));
+        if (values != null) {
+            Arrays.sort(values, 0, count);
+            return OptionalInt.of(values[Math.min(rank, count) - 1]);
+        }
+        long seen = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            seen += histogram[value];
+            if (seen >= rank) {
+                return OptionalInt.of(value);
+            }
+        }
+        return OptionalInt.of(histogram.length - 1);
+    }
+
+    /**
+     * The counted values, in a buffer with room for as many more.
+     */
+    private static int[] spill(int[] histogram, int count) {
+        int[] values = new int[Math.max(32, count << 1)];
+        int next = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            for (int times = histogram[value]; times > 0; times--) {
+                values[next++] = value;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Iterator;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A changing population, propagating each change to the registered {@link PeopleView}s.
+ * <p/>
+ * People are values: equal people, such as two John Smiths without pets, are counted rather than collapsed, and
+ * removing or replacing one of them leaves the others.
+ * <p/>
+ * Registering a view computes it once over the current people; afterwards each change only updates the views
+ * with the people added and removed. Changes are serialized, reads are not blocked.
+ */
+public final class LivePopulation {
+    private final Object lock = new Object();
+    private volatile Map<Person, Integer> people;
+    private volatile List<PeopleView<?>> views = List.empty();
+
+    public LivePopulation() {
+        this(List.empty());
+    }
+
+    public LivePopulation(Iterable<Person> people) {
+        Map<Person, Integer> counts = HashMap.empty();
+        for (Person person : people) {
+            counts = PeopleView.count(counts, person, 1);
+        }
+        this.people = counts;
+    }
+
+    /**
+     * Each person with the number of equal people in the population.
+     */
+    public Map<Person, Integer> people() {
+        return people;
+    }
+
+    public <S> PeopleView<S> register(PeopleView<S> view) {
+        synchronized (lock) {
+            view.reset(people.iterator().flatMap(person -> Iterator.fill(person._2, () -> person._1)));
+            views = views.append(view);
+        }
+        return view;
+    }
+
+    public void unregister(PeopleView<?> view) {
+        synchronized (lock) {
+            views = views.remove(view);
+        }
+    }
+
+    /**
+     * Adds the person, even when an equal one is already in the population.
+     */
+    public void add(Person person) {
+        synchronized (lock) {
+            people = PeopleView.count(people, person, 1);
+            propagate(null, person);
+        }
+    }
+
+    /**
+     * Removes one occurrence of the person, returning false when it is not in the population.
+     */
+    public boolean remove(Person person) {
+        synchronized (lock) {
+            if (!people.containsKey(person)) {
+                return false;
+            }
+            people = PeopleView.count(people, person, -1);
+            propagate(person, null);
+            return true;
+        }
+    }
+
+    /**
+     * Replaces one occurrence of a person with its new version.
+     *
+     * @throws NoSuchElementException when the previous version is not in the population
+     */
+    public void replace(Person previous, Person next) {
+        synchronized (lock) {
+            if (!people.containsKey(previous)) {
+                throw new NoSuchElementException("Not in the population : " + previous.fullName());
+            }
+            if (previous.equals(next)) {
+                return;
+            }
+            people = PeopleView.count(PeopleView.count(people, previous, -1), next, 1);
+            propagate(previous, next);
+        }
+    }
+
+    /**
+     * Replaces the person with a version owning one more pet, and returns it.
+     */
+    public Person addPet(Person person, PetType type, String name, int age) {
+        Person next = person.addPet(type, name, age);
+        replace(person, next);
+        return next;
+    }
+
+    private void propagate(Person previous, Person next) {
+        for (PeopleView<?> view : views) {
+            view.apply(previous, next);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.bil.katas.vavr.exercises;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of names, so that people and pets loaded with the same pool share a single {@link String}
+ * per name.
+ * <p/>
+ * Names are never removed: a pool is meant to be scoped to a load, such as a {@link PeopleCsvReader} or a
+ * {@link PetSnapshot}, and released with it. {@link Person} and {@link Pet} do not intern their names themselves.
+ */
+public final class NamePool {
+    private static final NamePool NONE = new NamePool(null);
+
+    private final ConcurrentHashMap<String, String> names;
+
+    public NamePool() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    private NamePool(ConcurrentHashMap<String, String> names) {
+        this.names = names;
+    }
+
+    /**
+     * A pool returning names as they are.
+     */
+    public static NamePool none() {
+        return NONE;
+    }
+
+    public String intern(String name) {
+        if (name == null || names == null) {
+            return name;
+        }
+        String canonical = names.get(name);
+        if (canonical != null) {
+            return canonical;
+        }
+        canonical = names.putIfAbsent(name, name);
+        return canonical == null ? name : canonical;
+    }
+
+    public int size() {
+        return names == null ? 0 : names.size();
+    }
+}
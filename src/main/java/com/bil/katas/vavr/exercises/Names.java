@@ -0,0 +1,66 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.control.Option;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Dictionary of the distinct names of a {@link PetRegistry}, indexed by code.
+ */
+abstract class Names {
+
+    abstract int size();
+
+    abstract String get(int code);
+
+    static Names of(List<String> names) {
+        String[] array = names.toArray(new String[0]);
+        return new Names() {
+            @Override
+            int size() {
+                return array.length;
+            }
+
+            @Override
+            String get(int code) {
+                return array[code];
+            }
+        };
+    }
+
+    /**
+     * Names stored as one byte per character in a single array, half the size of Java 8 strings and without a
+     * header per name. Every {@link #get(int)} decodes a new string. None when a name is not Latin-1.
+     */
+    static Option<Names> latin1(List<String> names) {
+        int[] offsets = new int[names.size() + 1];
+        for (int code = 0; code < names.size(); code++) {
+            String name = names.get(code);
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) > 0xFF) {
+                    return Option.none();
+                }
+            }
+            offsets[code + 1] = offsets[code] + name.length();
+        }
+        byte[] bytes = new byte[offsets[names.size()]];
+        for (int code = 0; code < names.size(); code++) {
+            String name = names.get(code);
+            for (int i = 0; i < name.length(); i++) {
+                bytes[offsets[code] + i] = (byte) name.charAt(i);
+            }
+        }
+        return Option.some(new Names() {
+            @Override
+            int size() {
+                return offsets.length - 1;
+            }
+
+            @Override
+            String get(int code) {
+                return new String(bytes, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.ISO_8859_1);
+            }
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.IndexedSeq;
+import io.vavr.collection.LinkedHashSet;
+import io.vavr.collection.Map;
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates {@link Seq} operations in parallel on a {@link ForkJoinPool}.
+ * <p/>
+ * The source is split in index ranges sliced out of the underlying {@link Vector}, each range is evaluated
+ * sequentially and partial results are combined left to right, so results keep the encounter order of the source.
+ * Sources not larger than the threshold are evaluated on the calling thread.
+ * <pre>
+ * ParallelQuery.of(people).flatMap(Person::getPets).map(Pet::getType).distinct().toSeq();
+ * </pre>
+ */
+public class ParallelQuery<T> {
+    private static final int DEFAULT_THRESHOLD = 8192;
+
+    private final IndexedSeq<T> source;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private ParallelQuery(IndexedSeq<T> source, ForkJoinPool pool, int threshold) {
+        this.source = source;
+        this.pool = pool;
+        this.threshold = Math.max(threshold, 1);
+    }
+
+    public static <T> ParallelQuery<T> of(Seq<T> source) {
+        IndexedSeq<T> indexed = source instanceof IndexedSeq ? (IndexedSeq<T>) source : Vector.ofAll(source);
+        return new ParallelQuery<>(indexed, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelQuery<T> on(ForkJoinPool pool) {
+        return new ParallelQuery<>(source, pool, threshold);
+    }
+
+    public ParallelQuery<T> withThreshold(int threshold) {
+        return new ParallelQuery<>(source, pool, threshold);
+    }
+
+    public ParallelQuery<T> filter(Predicate<? super T> predicate) {
+        return derive(reduce(chunk -> chunk.filter(predicate), IndexedSeq::appendAll));
+    }
+
+    public <U> ParallelQuery<U> map(Function<? super T, ? extends U> mapper) {
+        return derive(reduce(chunk -> chunk.<U> map(mapper), IndexedSeq::appendAll));
+    }
+
+    public <U> ParallelQuery<U> flatMap(Function<? super T, ? extends Iterable<? extends U>> mapper) {
+        return derive(reduce(chunk -> chunk.<U> flatMap(mapper), IndexedSeq::appendAll));
+    }
+
+    public ParallelQuery<T> distinct() {
+        return derive(reduce(LinkedHashSet::ofAll, LinkedHashSet::addAll).toVector());
+    }
+
+    public int count(Predicate<? super T> predicate) {
+        return reduce(chunk -> chunk.count(predicate), Integer::sum);
+    }
+
+    public <K> Map<K, Seq<T>> groupBy(Function<? super T, ? extends K> classifier) {
+        return reduce(
+                chunk -> chunk.groupBy(classifier).mapValues(group -> (Seq<T>) group),
+                (left, right) -> left.merge(right, Seq::appendAll));
+    }
+
+    /**
+     * The first smallest element, as {@link Seq#minBy(Comparator)}.
+     */
+    public Option<T> minBy(Comparator<? super T> comparator) {
+        return reduce(chunk -> chunk.minBy(comparator), (left, right) -> pick(left, right, comparator));
+    }
+
+    /**
+     * The first greatest element, as {@link Seq#maxBy(Comparator)}.
+     */
+    public Option<T> maxBy(Comparator<? super T> comparator) {
+        return reduce(chunk -> chunk.maxBy(comparator), (left, right) -> pick(left, right, comparator.reversed()));
+    }
+
+    public Seq<T> toSeq() {
+        return source;
+    }
+
+    private <U> ParallelQuery<U> derive(IndexedSeq<U> result) {
+        return new ParallelQuery<>(result, pool, threshold);
+    }
+
+    private <R> R reduce(Function<IndexedSeq<T>, R> leaf, BinaryOperator<R> combiner) {
+        if (source.size() <= threshold) {
+            return leaf.apply(source);
+        }
+        return pool.invoke(new Split<>(source, 0, source.size(), threshold, leaf, combiner));
+    }
+
+    private static <T> Option<T> pick(Option<T> left, Option<T> right, Comparator<? super T> comparator) {
+        if (left.isEmpty()) {
+            return right;
+        }
+        if (right.isEmpty()) {
+            return left;
+        }
+        return comparator.compare(right.get(), left.get()) < 0 ? right : left;
+    }
+
+    private static final class Split<T, R> extends RecursiveTask<R> {
+        private final IndexedSeq<T> source;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final Function<IndexedSeq<T>, R> leaf;
+        private final BinaryOperator<R> combiner;
+
+        private Split(IndexedSeq<T> source, int from, int to, int threshold,
+                      Function<IndexedSeq<T>, R> leaf, BinaryOperator<R> combiner) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= threshold) {
+                return leaf.apply(source.slice(from, to));
+            }
+            int middle = (from + to) >>> 1;
+            Split<T, R> left = new Split<>(source, from, middle, threshold, leaf, combiner);
+            left.fork();
+            R right = new Split<>(source, middle, to, threshold, leaf, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+}
@@ -2,20 +2,53 @@ package com.bil.katas.vavr.exercises;
 
 import io.vavr.collection.Seq;
 import io.vavr.collection.Vector;
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
-@AllArgsConstructor
 public class Park {
     private final String name;
     private final Seq<PetType> authorizedPetTypes;
+    // Bitmask of the authorized PetType ordinals
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final int authorizedPetTypeMask;
 
     public Park(String name) {
         this(name, Vector.empty());
     }
 
+    public Park(String name, Seq<PetType> authorizedPetTypes) {
+        this(name, authorizedPetTypes, PetType.mask(authorizedPetTypes));
+    }
+
+    private Park(String name, Seq<PetType> authorizedPetTypes, int authorizedPetTypeMask) {
+        this.name = name;
+        this.authorizedPetTypes = authorizedPetTypes;
+        this.authorizedPetTypeMask = authorizedPetTypeMask;
+    }
+
     public Park addAuthorizedPetType(PetType petType) {
-        return new Park(name, authorizedPetTypes.append(petType));
+        return new Park(name, authorizedPetTypes.append(petType), authorizedPetTypeMask | petType.bit());
+    }
+
+    /**
+     * Adds all the pet types at once, with a single copy of the park.
+     */
+    public Park withAuthorizedPetTypes(Iterable<PetType> petTypes) {
+        Vector<PetType> added = Vector.ofAll(petTypes);
+        return new Park(name, authorizedPetTypes.appendAll(added), authorizedPetTypeMask | PetType.mask(added));
+    }
+
+    public boolean authorizes(PetType petType) {
+        return (authorizedPetTypeMask & petType.bit()) != 0;
+    }
+
+    /**
+     * Whether every pet type of the person is authorized here.
+     */
+    public boolean welcomes(Person person) {
+        return (person.getPetTypeMask() & ~authorizedPetTypeMask) == 0;
     }
 }
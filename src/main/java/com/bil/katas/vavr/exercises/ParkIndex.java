@@ -0,0 +1,52 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.Tuple;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+
+/**
+ * Answers which parks welcome which people.
+ * <p/>
+ * A person can walk in a park when the person's pet type mask is included in the park's authorized mask.
+ * As there are only {@link PetType#maskCount()} possible masks, the parks welcoming each mask are computed once
+ * and finding the parks of a person is an indexed lookup.
+ */
+public class ParkIndex {
+    private final Seq<Park> parks;
+    private final Vector<Seq<Park>> parksByPetTypeMask;
+
+    private ParkIndex(Seq<Park> parks) {
+        this.parks = parks;
+        this.parksByPetTypeMask = Vector.tabulate(PetType.maskCount(),
+                mask -> parks.filter(park -> (mask & ~park.getAuthorizedPetTypeMask()) == 0));
+    }
+
+    public static ParkIndex of(Seq<Park> parks) {
+        return new ParkIndex(Vector.ofAll(parks));
+    }
+
+    public Seq<Park> parksFor(Person person) {
+        return parksByPetTypeMask.get(person.getPetTypeMask());
+    }
+
+    public Seq<Person> peopleFor(Park park, Seq<Person> people) {
+        int authorized = park.getAuthorizedPetTypeMask();
+        return people.filter(person -> (person.getPetTypeMask() & ~authorized) == 0);
+    }
+
+    /**
+     * The parks of every person, in the order of the people.
+     */
+    public Map<Person, Seq<Park>> parksPerPerson(Seq<Person> people) {
+        return LinkedHashMap.ofEntries(people.map(person -> Tuple.of(person, parksFor(person))));
+    }
+
+    /**
+     * The people welcomed in every park, in the order of the parks.
+     */
+    public Map<Park, Seq<Person>> peoplePerPark(Seq<Person> people) {
+        return LinkedHashMap.ofEntries(parks.map(park -> Tuple.of(park, peopleFor(park, people))));
+    }
+}
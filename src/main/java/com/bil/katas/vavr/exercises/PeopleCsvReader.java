@@ -0,0 +1,181 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Iterator;
+import io.vavr.control.Try;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads people and their pets from a CSV file, one person per line:
+ * <pre>
+ * Bob,Smith,CAT:Dolly:3,DOG:Spot:2
+ * John,Doe
+ * </pre>
+ * Fields are not quoted, so names cannot contain commas or colons. Empty lines are skipped.
+ * <p/>
+ * The file is cut in splits aligned on lines, memory-mapped and parsed in parallel. Each split hands its people
+ * to the reader in batches through a small bounded queue, so parsers stay only a few batches ahead of the
+ * consumer whatever the file size, and people are read in file order while later splits are being parsed.
+ * Names repeated across lines can be shared by reading with a {@link NamePool}.
+ */
+public final class PeopleCsvReader implements AutoCloseable {
+    private static final int DEFAULT_SPLIT_SIZE = 32 << 20;
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+    private static final int BATCH_SIZE = 1024;
+    private static final int BATCHES_PER_SPLIT = 4;
+    private static final List<Person> END_OF_SPLIT = new ArrayList<>(0);
+
+    private final FileChannel channel;
+    private final long size;
+    private final int splitSize;
+    private final ExecutorService parsers;
+    private final NamePool names;
+
+    private PeopleCsvReader(FileChannel channel, int splitSize, int parallelism, NamePool names) throws IOException {
+        this.channel = channel;
+        this.names = names;
+        this.size = channel.size();
+        this.splitSize = splitSize;
+        AtomicInteger counter = new AtomicInteger();
+        this.parsers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "people-csv-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static PeopleCsvReader open(Path file) throws IOException {
+        return open(file, DEFAULT_SPLIT_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static PeopleCsvReader open(Path file, int splitSize, int parallelism) throws IOException {
+        return open(file, splitSize, parallelism, NamePool.none());
+    }
+
+    /**
+     * A reader interning the names it reads with the pool.
+     */
+    public static PeopleCsvReader open(Path file, int splitSize, int parallelism, NamePool names) throws IOException {
+        if (splitSize <= 0 || splitSize > Integer.MAX_VALUE - MAX_LINE_LENGTH) {
+            throw new IllegalArgumentException("Invalid split size : " + splitSize);
+        }
+        return new PeopleCsvReader(FileChannel.open(file, StandardOpenOption.READ), splitSize, parallelism, names);
+    }
+
+    /**
+     * Starts parsing and returns the people in file order as they are parsed.
+     * A parse failure is thrown when the iterator reaches the split where it happened.
+     */
+    public Iterator<Person> people() {
+        int splitCount = (int) ((size + splitSize - 1) / splitSize);
+        List<BlockingQueue<Try<List<Person>>>> splits = new ArrayList<>(splitCount);
+        for (int split = 0; split < splitCount; split++) {
+            BlockingQueue<Try<List<Person>>> batches = new ArrayBlockingQueue<>(BATCHES_PER_SPLIT);
+            int index = split;
+            splits.add(batches);
+            parsers.execute(() -> parse(index, batches));
+        }
+        return Iterator.ofAll(splits).flatMap(PeopleCsvReader::drain);
+    }
+
+    /**
+     * Reads the whole file into a {@link PetRegistry}.
+     */
+    public PetRegistry toRegistry() {
+        return people().foldLeft(PetRegistry.builder(), PetRegistry.Builder::add).build();
+    }
+
+    /**
+     * Stops the parsers, even those waiting for an abandoned iterator, and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        parsers.shutdownNow();
+        channel.close();
+    }
+
+    private static Iterator<Person> drain(BlockingQueue<Try<List<Person>>> batches) {
+        return Iterator.continually(() -> Try.of(batches::take).flatMap(batch -> batch).get())
+                .takeWhile(batch -> batch != END_OF_SPLIT)
+                .flatMap(Iterator::ofAll);
+    }
+
+    private void parse(int split, BlockingQueue<Try<List<Person>>> batches) {
+        Try.run(() -> {
+            // A line belongs to the split where it starts, so a split starts after the first new line preceding it
+            long start = split == 0 ? 0 : (long) split * splitSize - 1;
+            long end = Math.min(size, (long) (split + 1) * splitSize);
+            long mappedEnd = Math.min(size, end + MAX_LINE_LENGTH);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mappedEnd - start);
+            int limit = (int) (end - start);
+            int position = split == 0 ? 0 : endOfLine(buffer, 0, mappedEnd == size) + 1;
+
+            List<Person> batch = new ArrayList<>(BATCH_SIZE);
+            while (position < limit) {
+                int endOfLine = endOfLine(buffer, position, mappedEnd == size);
+                int endOfText = endOfLine > position && buffer.get(endOfLine - 1) == '\r' ? endOfLine - 1 : endOfLine;
+                if (endOfText > position) {
+                    batch.add(parseLine(buffer, position, endOfText));
+                    if (batch.size() == BATCH_SIZE) {
+                        batches.put(Try.success(batch));
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                position = endOfLine + 1;
+            }
+            if (!batch.isEmpty()) {
+                batches.put(Try.success(batch));
+            }
+            batches.put(Try.success(END_OF_SPLIT));
+        }).onFailure(e -> Try.run(() -> batches.put(Try.failure(e))));
+    }
+
+    private static int endOfLine(ByteBuffer buffer, int from, boolean endOfFile) throws IOException {
+        for (int position = from; position < buffer.limit(); position++) {
+            if (buffer.get(position) == '\n') {
+                return position;
+            }
+        }
+        if (!endOfFile) {
+            throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+        }
+        return buffer.limit();
+    }
+
+    private Person parseLine(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        ByteBuffer line = buffer.duplicate();
+        line.position(from);
+        line.get(bytes);
+        return parseLine(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private Person parseLine(String line) {
+        String[] fields = line.split(",");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Expected first and last names : " + line);
+        }
+        Person.Builder person = Person.builder(fields[0], fields[1], names);
+        for (int field = 2; field < fields.length; field++) {
+            String[] pet = fields[field].split(":");
+            if (pet.length != 3) {
+                throw new IllegalArgumentException("Expected TYPE:name:age : " + fields[field]);
+            }
+            person.pet(PetType.valueOf(pet[0]), pet[1], Integer.parseInt(pet[2]));
+        }
+        return person.build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.Map;
+import io.vavr.collection.Seq;
+import io.vavr.collection.Set;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.TreeMap;
+import io.vavr.collection.TreeSet;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable indexes over people: by full name, by owned pet type and by pet age.
+ * <p/>
+ * Indexes map keys to the positions of the matching people, kept sorted so that lookups return people in
+ * insertion order. They are persistent collections: {@link #update(Person, Person)} only touches the entries
+ * that differ between the two versions of a person and shares everything else with the previous index.
+ */
+public final class PeopleIndex {
+    private static final PetType[] PET_TYPES = PetType.values();
+    private static final PeopleIndex EMPTY = new PeopleIndex(Vector.empty(), HashMap.empty(), HashMap.empty(), TreeMap.empty());
+
+    private final Vector<Person> people;
+    private final Map<String, TreeSet<Integer>> byName;
+    private final Map<PetType, TreeSet<Integer>> byPetType;
+    private final SortedMap<Integer, TreeSet<Integer>> byPetAge;
+
+    private PeopleIndex(Vector<Person> people,
+                        Map<String, TreeSet<Integer>> byName,
+                        Map<PetType, TreeSet<Integer>> byPetType,
+                        SortedMap<Integer, TreeSet<Integer>> byPetAge) {
+        this.people = people;
+        this.byName = byName;
+        this.byPetType = byPetType;
+        this.byPetAge = byPetAge;
+    }
+
+    public static PeopleIndex empty() {
+        return EMPTY;
+    }
+
+    public static PeopleIndex of(Seq<Person> people) {
+        return people.foldLeft(empty(), PeopleIndex::add);
+    }
+
+    public int size() {
+        return people.size();
+    }
+
+    public Seq<Person> people() {
+        return people;
+    }
+
+    /**
+     * The first person with this full name.
+     */
+    public Option<Person> named(String fullName) {
+        return byName.get(fullName).map(slots -> people.get(slots.head()));
+    }
+
+    public Seq<Person> ownersOf(PetType type) {
+        return byPetType.get(type).map(this::peopleAt).getOrElse(Vector.empty());
+    }
+
+    public Seq<Person> ownersOfPetsAged(int age) {
+        return byPetAge.get(age).map(this::peopleAt).getOrElse(Vector.empty());
+    }
+
+    public Option<Integer> minPetAge() {
+        return byPetAge.isEmpty() ? Option.none() : Option.some(byPetAge.head()._1);
+    }
+
+    public Option<Integer> maxPetAge() {
+        return byPetAge.isEmpty() ? Option.none() : Option.some(byPetAge.last()._1);
+    }
+
+    /**
+     * The first person owning a pet of the minimum age.
+     */
+    public Option<Person> youngestPetOwner() {
+        return byPetAge.isEmpty() ? Option.none() : Option.some(people.get(byPetAge.head()._2.head()));
+    }
+
+    /**
+     * The first person owning a pet of the maximum age.
+     */
+    public Option<Person> oldestPetOwner() {
+        return byPetAge.isEmpty() ? Option.none() : Option.some(people.get(byPetAge.last()._2.head()));
+    }
+
+    public PeopleIndex add(Person person) {
+        int slot = people.size();
+        Map<PetType, TreeSet<Integer>> petTypes = byPetType;
+        for (PetType type : PET_TYPES) {
+            if (person.hasPetType(type)) {
+                petTypes = with(petTypes, type, slot);
+            }
+        }
+        Map<Integer, TreeSet<Integer>> petAges = byPetAge;
+        for (Integer age : petAges(person)) {
+            petAges = with(petAges, age, slot);
+        }
+        return new PeopleIndex(people.append(person), with(byName, person.fullName(), slot), petTypes,
+                (SortedMap<Integer, TreeSet<Integer>>) petAges);
+    }
+
+    /**
+     * Replaces a person by its new version, typically returned by {@link Person#addPet(PetType, String, int)},
+     * updating only the index entries which differ between both.
+     *
+     * @throws NoSuchElementException when the previous version is not indexed
+     */
+    public PeopleIndex update(Person previous, Person next) {
+        int slot = slotOf(previous);
+
+        Map<String, TreeSet<Integer>> names = byName;
+        if (!previous.named(next.fullName())) {
+            names = with(without(names, previous.fullName(), slot), next.fullName(), slot);
+        }
+
+        Map<PetType, TreeSet<Integer>> petTypes = byPetType;
+        for (PetType type : PET_TYPES) {
+            if (previous.hasPetType(type) && !next.hasPetType(type)) {
+                petTypes = without(petTypes, type, slot);
+            } else if (!previous.hasPetType(type) && next.hasPetType(type)) {
+                petTypes = with(petTypes, type, slot);
+            }
+        }
+
+        Set<Integer> previousAges = petAges(previous);
+        Set<Integer> nextAges = petAges(next);
+        Map<Integer, TreeSet<Integer>> petAges = byPetAge;
+        for (Integer age : previousAges.diff(nextAges)) {
+            petAges = without(petAges, age, slot);
+        }
+        for (Integer age : nextAges.diff(previousAges)) {
+            petAges = with(petAges, age, slot);
+        }
+
+        return new PeopleIndex(people.update(slot, next), names, petTypes, (SortedMap<Integer, TreeSet<Integer>>) petAges);
+    }
+
+    private int slotOf(Person person) {
+        return byName.get(person.fullName())
+                .flatMap(slots -> slots.find(slot -> people.get(slot) == person || people.get(slot).equals(person)))
+                .getOrElseThrow(() -> new NoSuchElementException("Person not indexed : " + person.fullName()));
+    }
+
+    private Seq<Person> peopleAt(TreeSet<Integer> slots) {
+        return slots.toVector().map(people::get);
+    }
+
+    private static Set<Integer> petAges(Person person) {
+        return HashSet.ofAll(person.getPets().map(Pet::getAge));
+    }
+
+    private static <K> Map<K, TreeSet<Integer>> with(Map<K, TreeSet<Integer>> index, K key, int slot) {
+        return index.put(key, index.get(key).getOrElse(TreeSet.empty()).add(slot));
+    }
+
+    private static <K> Map<K, TreeSet<Integer>> without(Map<K, TreeSet<Integer>> index, K key, int slot) {
+        TreeSet<Integer> slots = index.get(key).getOrElse(TreeSet.empty()).remove(slot);
+        return slots.isEmpty() ? index.remove(key) : index.put(key, slots);
+    }
+}
@@ -0,0 +1,127 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.TreeMap;
+
+import java.util.function.BiFunction;
+
+/**
+ * Aggregate over a {@link LivePopulation}, maintained from the people added and removed instead of being
+ * recomputed from the whole population.
+ * <p/>
+ * The state is an immutable value replaced once per change, a replaced person being removed then added before
+ * the new state is published: {@link #snapshot()} is always consistent and never changes once read.
+ * <p/>
+ * Equal people are each added and removed: views of people count them, so one of them leaving keeps the others.
+ */
+public final class PeopleView<S> {
+    private static final PetType[] PET_TYPES = PetType.values();
+
+    private final S empty;
+    private final BiFunction<S, Person, S> added;
+    private final BiFunction<S, Person, S> removed;
+    private volatile S state;
+
+    private PeopleView(S empty, BiFunction<S, Person, S> added, BiFunction<S, Person, S> removed) {
+        this.empty = empty;
+        this.added = added;
+        this.removed = removed;
+        this.state = empty;
+    }
+
+    /**
+     * A view starting from {@code empty}, {@code added} and {@code removed} returning the state updated with
+     * a single person.
+     */
+    public static <S> PeopleView<S> of(S empty, BiFunction<S, Person, S> added, BiFunction<S, Person, S> removed) {
+        return new PeopleView<>(empty, added, removed);
+    }
+
+    /**
+     * Number of pets per pet type, types without pets being absent.
+     */
+    public static PeopleView<Map<PetType, Integer>> petCounts() {
+        return of(HashMap.empty(), (counts, person) -> addPetCounts(counts, person, 1), (counts, person) -> addPetCounts(counts, person, -1));
+    }
+
+    /**
+     * People owning at least one pet of each pet type with their number, types without owners being absent.
+     */
+    public static PeopleView<Map<PetType, Map<Person, Integer>>> ownersByPetType() {
+        return of(HashMap.empty(), (owners, person) -> countByPetType(owners, person, 1), (owners, person) -> countByPetType(owners, person, -1));
+    }
+
+    /**
+     * People owning a pet of each age with their number, sorted by age: the head holds the youngest pet owners and
+     * the last entry the oldest ones.
+     */
+    public static PeopleView<SortedMap<Integer, Map<Person, Integer>>> ownersByPetAge() {
+        return of(TreeMap.empty(), (owners, person) -> countByPetAge(owners, person, 1), (owners, person) -> countByPetAge(owners, person, -1));
+    }
+
+    public S snapshot() {
+        return state;
+    }
+
+    void reset(Iterable<Person> people) {
+        S next = empty;
+        for (Person person : people) {
+            next = added.apply(next, person);
+        }
+        state = next;
+    }
+
+    void apply(Person previous, Person next) {
+        S updated = state;
+        if (previous != null) {
+            updated = removed.apply(updated, previous);
+        }
+        if (next != null) {
+            updated = added.apply(updated, next);
+        }
+        state = updated;
+    }
+
+    private static Map<PetType, Integer> addPetCounts(Map<PetType, Integer> counts, Person person, int sign) {
+        for (PetType type : PET_TYPES) {
+            int pets = person.getNumberOfPets(type);
+            if (pets > 0) {
+                counts = count(counts, type, sign * pets);
+            }
+        }
+        return counts;
+    }
+
+    private static Map<PetType, Map<Person, Integer>> countByPetType(Map<PetType, Map<Person, Integer>> owners, Person person, int sign) {
+        for (PetType type : PET_TYPES) {
+            if (person.hasPetType(type)) {
+                owners = countOwner(owners, type, person, sign);
+            }
+        }
+        return owners;
+    }
+
+    private static SortedMap<Integer, Map<Person, Integer>> countByPetAge(SortedMap<Integer, Map<Person, Integer>> owners, Person person, int sign) {
+        // Pets of a same age count their owner once
+        for (Integer age : person.getPets().map(Pet::getAge).distinct()) {
+            owners = countOwner(owners, age, person, sign);
+        }
+        return owners;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, M extends Map<K, Map<Person, Integer>>> M countOwner(M owners, K key, Person person, int delta) {
+        Map<Person, Integer> remaining = count(owners.get(key).getOrElse(HashMap.empty()), person, delta);
+        return (M) (remaining.isEmpty() ? owners.remove(key) : owners.put(key, remaining));
+    }
+
+    /**
+     * Adds the delta to the count of the key, removing it once at zero.
+     */
+    static <K> Map<K, Integer> count(Map<K, Integer> counts, K key, int delta) {
+        int count = counts.get(key).getOrElse(0) + delta;
+        return count == 0 ? counts.remove(key) : counts.put(key, count);
+    }
+}
@@ -1,43 +1,114 @@
 package com.bil.katas.vavr.exercises;
 
+import io.vavr.Lazy;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.Map;
 import io.vavr.collection.Seq;
 import io.vavr.collection.Vector;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
-@AllArgsConstructor
 public class Person {
+    private static final PetType[] PET_TYPES = PetType.values();
+
     private final String firstName;
     private final String lastName;
     private final Seq<Pet> pets;
 
+    // Pet type summary kept in sync with pets: count per PetType ordinal and a bitmask of the owned types
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final int[] petTypeCounts;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final int petTypeMask;
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Lazy<Map<PetType, Integer>> petTypes = Lazy.of(this::petTypeHistogram);
+
     public Person(String firstName, String lastName) {
         this(firstName, lastName, Vector.empty());
     }
 
+    public Person(String firstName, String lastName, Seq<Pet> pets) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.pets = pets;
+        this.petTypeCounts = new int[PET_TYPES.length];
+        int mask = 0;
+        for (Pet pet : pets) {
+            petTypeCounts[pet.getType().ordinal()]++;
+            mask |= pet.getType().bit();
+        }
+        this.petTypeMask = mask;
+    }
+
+    private Person(String firstName, String lastName, Seq<Pet> pets, int[] petTypeCounts, int petTypeMask) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.pets = pets;
+        this.petTypeCounts = petTypeCounts;
+        this.petTypeMask = petTypeMask;
+    }
+
     public String fullName() {
         return getFirstName() + " " + getLastName();
     }
 
+    /**
+     * Whether the name is the {@link #fullName()}, compared in place without building it.
+     */
     public boolean named(String name) {
-        return name.equals(firstName + " " + lastName);
+        int separator = firstName.length();
+        return name.length() == separator + 1 + lastName.length()
+                && name.charAt(separator) == ' '
+                && name.startsWith(firstName)
+                && name.endsWith(lastName);
     }
 
     public Map<PetType, Integer> getPetTypes() {
-        return pets.groupBy(Pet::getType)
-                .map(e -> Map.entry(e._1, e._2.size()))
-                .collect(HashMap.collector());
+        return petTypes.get();
     }
 
     public boolean hasPetType(PetType type) {
-        return getPetTypes().containsKey(type);
+        return (petTypeMask & type.bit()) != 0;
+    }
+
+    public int getNumberOfPets(PetType type) {
+        return petTypeCounts[type.ordinal()];
     }
 
     public Person addPet(PetType petType, String name, int age) {
-        return new Person(firstName, lastName, pets.append(new Pet(petType, name, age)));
+        int[] counts = petTypeCounts.clone();
+        counts[petType.ordinal()]++;
+        return new Person(firstName, lastName, pets.append(new Pet(petType, name, age)), counts, petTypeMask | petType.bit());
+    }
+
+    /**
+     * Adds all the pets at once: a single copy of the person and of its pets, whatever their number.
+     */
+    public Person withPets(Iterable<Pet> pets) {
+        return new Person(firstName, lastName, this.pets.appendAll(pets));
+    }
+
+    public static Builder builder(String firstName, String lastName) {
+        return builder(firstName, lastName, NamePool.none());
+    }
+
+    /**
+     * A builder interning the person and pet names with the pool.
+     */
+    public static Builder builder(String firstName, String lastName, NamePool names) {
+        return new Builder(names.intern(firstName), names.intern(lastName), names);
     }
 
     public boolean isPetPerson() {
@@ -47,4 +118,44 @@ public class Person {
     public int getNumberOfPets() {
         return this.pets.size();
     }
+
+    private Map<PetType, Integer> petTypeHistogram() {
+        Map<PetType, Integer> histogram = HashMap.empty();
+        for (PetType type : PET_TYPES) {
+            if (petTypeCounts[type.ordinal()] > 0) {
+                histogram = histogram.put(type, petTypeCounts[type.ordinal()]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Gathers pets in a mutable buffer, {@link #build()} freezes them into a {@link Person}.
+     */
+    public static class Builder {
+        private final String firstName;
+        private final String lastName;
+        private final NamePool names;
+        private final List<Pet> pets = new ArrayList<>();
+
+        private Builder(String firstName, String lastName, NamePool names) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.names = names;
+        }
+
+        public Builder pet(PetType type, String name, int age) {
+            pets.add(new Pet(type, names.intern(name), age));
+            return this;
+        }
+
+        public Builder pets(Iterable<Pet> pets) {
+            pets.forEach(this.pets::add);
+            return this;
+        }
+
+        public Person build() {
+            return new Person(firstName, lastName, Vector.ofAll(pets));
+        }
+    }
 }
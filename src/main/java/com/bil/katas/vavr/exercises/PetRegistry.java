@@ -0,0 +1,298 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Column-oriented snapshot of people and their pets, meant for scans over large populations.
+ * <p/>
+ * Every attribute is stored in its own primitive array: people are rows of the person columns, pets rows of
+ * the pet columns, and the pets of person {@code i} are the rows {@code [petOffsets[i], petOffsets[i + 1])}.
+ * Names are dictionary-encoded: columns hold codes into a pool of distinct strings, optionally stored as Latin-1 bytes.
+ */
+public class PetRegistry {
+    private static final PetType[] PET_TYPES = PetType.values();
+
+    private final Names names;
+
+    private final int[] firstNames;
+    private final int[] lastNames;
+    private final byte[] petTypeMasks;
+    private final int[] petOffsets;
+
+    private final int[] petNames;
+    private final byte[] petTypes;
+    private final int[] petAges;
+    private final int[] petOwners;
+
+    private PetRegistry(Builder builder) {
+        this.names = builder.compactNames
+                ? Names.latin1(builder.names).getOrElse(() -> Names.of(builder.names))
+                : Names.of(builder.names);
+        this.firstNames = Arrays.copyOf(builder.firstNames, builder.personCount);
+        this.lastNames = Arrays.copyOf(builder.lastNames, builder.personCount);
+        this.petTypeMasks = Arrays.copyOf(builder.petTypeMasks, builder.personCount);
+        this.petOffsets = Arrays.copyOf(builder.petOffsets, builder.personCount + 1);
+        this.petNames = Arrays.copyOf(builder.petNames, builder.petCount);
+        this.petTypes = Arrays.copyOf(builder.petTypes, builder.petCount);
+        this.petAges = Arrays.copyOf(builder.petAges, builder.petCount);
+        this.petOwners = Arrays.copyOf(builder.petOwners, builder.petCount);
+    }
+
+    public static PetRegistry of(Seq<Person> people) {
+        Builder builder = builder();
+        people.forEach(builder::add);
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int personCount() {
+        return firstNames.length;
+    }
+
+    public int petCount() {
+        return petAges.length;
+    }
+
+    public int distinctNameCount() {
+        return names.size();
+    }
+
+    public Person person(int index) {
+        Pet[] pets = new Pet[petOffsets[index + 1] - petOffsets[index]];
+        for (int pet = 0; pet < pets.length; pet++) {
+            pets[pet] = pet(petOffsets[index] + pet);
+        }
+        return new Person(names.get(firstNames[index]), names.get(lastNames[index]), Vector.of(pets));
+    }
+
+    public Pet pet(int index) {
+        return new Pet(PET_TYPES[petTypes[index]], names.get(petNames[index]), petAges[index]);
+    }
+
+    public Person owner(int petIndex) {
+        return person(petOwners[petIndex]);
+    }
+
+    public Seq<Person> toPeople() {
+        return Vector.range(0, personCount()).map(this::person);
+    }
+
+    public int countPets(PetType type) {
+        byte ordinal = (byte) type.ordinal();
+        int count = 0;
+        for (byte petType : petTypes) {
+            if (petType == ordinal) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int countOwners(PetType type) {
+        int bit = type.bit();
+        int count = 0;
+        for (byte mask : petTypeMasks) {
+            if ((mask & bit) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int countPetsByAge(IntPredicate age) {
+        int count = 0;
+        for (int petAge : petAges) {
+            if (age.test(petAge)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Indexes of the pets of the given type whose age matches.
+     */
+    public int[] filterPets(PetType type, IntPredicate age) {
+        byte ordinal = (byte) type.ordinal();
+        int[] matches = new int[petCount()];
+        int count = 0;
+        for (int pet = 0; pet < petAges.length; pet++) {
+            if (petTypes[pet] == ordinal && age.test(petAges[pet])) {
+                matches[count++] = pet;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Indexes of the people owning at least one pet of the given type.
+     */
+    public int[] filterOwners(PetType type) {
+        int bit = type.bit();
+        int[] matches = new int[personCount()];
+        int count = 0;
+        for (int person = 0; person < petTypeMasks.length; person++) {
+            if ((petTypeMasks[person] & bit) != 0) {
+                matches[count++] = person;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    public Option<Integer> minPetAge() {
+        return youngestPet().map(pet -> petAges[pet]);
+    }
+
+    public Option<Integer> maxPetAge() {
+        return oldestPet().map(pet -> petAges[pet]);
+    }
+
+    /**
+     * Owner of the first pet having the minimum age.
+     */
+    public Option<Person> youngestPetOwner() {
+        return youngestPet().map(this::owner);
+    }
+
+    /**
+     * Owner of the first pet having the maximum age.
+     */
+    public Option<Person> oldestPetOwner() {
+        return oldestPet().map(this::owner);
+    }
+
+    public Map<PetType, Integer> countByPetType() {
+        int[] counts = new int[PET_TYPES.length];
+        for (byte petType : petTypes) {
+            counts[petType]++;
+        }
+        Map<PetType, Integer> result = HashMap.empty();
+        for (PetType type : PET_TYPES) {
+            if (counts[type.ordinal()] > 0) {
+                result = result.put(type, counts[type.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    public Map<Integer, Integer> countByPetAge() {
+        java.util.Map<Integer, Integer> counts = new java.util.HashMap<>();
+        for (int petAge : petAges) {
+            counts.merge(petAge, 1, Integer::sum);
+        }
+        return HashMap.ofAll(counts);
+    }
+
+    private Option<Integer> youngestPet() {
+        if (petAges.length == 0) {
+            return Option.none();
+        }
+        int youngest = 0;
+        for (int pet = 1; pet < petAges.length; pet++) {
+            if (petAges[pet] < petAges[youngest]) {
+                youngest = pet;
+            }
+        }
+        return Option.some(youngest);
+    }
+
+    private Option<Integer> oldestPet() {
+        if (petAges.length == 0) {
+            return Option.none();
+        }
+        int oldest = 0;
+        for (int pet = 1; pet < petAges.length; pet++) {
+            if (petAges[pet] > petAges[oldest]) {
+                oldest = pet;
+            }
+        }
+        return Option.some(oldest);
+    }
+
+    /**
+     * Appends people to growable columns, {@link #build()} trims them into a {@link PetRegistry}.
+     */
+    public static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final java.util.Map<String, Integer> nameCodes = new java.util.HashMap<>();
+        private boolean compactNames;
+
+        private int personCount;
+        private int[] firstNames = new int[16];
+        private int[] lastNames = new int[16];
+        private byte[] petTypeMasks = new byte[16];
+        private int[] petOffsets = new int[17];
+
+        private int petCount;
+        private int[] petNames = new int[16];
+        private byte[] petTypes = new byte[16];
+        private int[] petAges = new int[16];
+        private int[] petOwners = new int[16];
+
+        private Builder() {
+        }
+
+        public Builder add(Person person) {
+            if (personCount == firstNames.length) {
+                int capacity = personCount << 1;
+                firstNames = Arrays.copyOf(firstNames, capacity);
+                lastNames = Arrays.copyOf(lastNames, capacity);
+                petTypeMasks = Arrays.copyOf(petTypeMasks, capacity);
+                petOffsets = Arrays.copyOf(petOffsets, capacity + 1);
+            }
+            int index = personCount++;
+            firstNames[index] = code(person.getFirstName());
+            lastNames[index] = code(person.getLastName());
+            petTypeMasks[index] = (byte) person.getPetTypeMask();
+            person.getPets().forEach(pet -> addPet(index, pet));
+            petOffsets[personCount] = petCount;
+            return this;
+        }
+
+        /**
+         * Stores names as Latin-1 bytes when they all fit, trading an allocation per name read for memory.
+         */
+        public Builder compactNames() {
+            this.compactNames = true;
+            return this;
+        }
+
+        public PetRegistry build() {
+            return new PetRegistry(this);
+        }
+
+        private void addPet(int owner, Pet pet) {
+            if (petCount == petAges.length) {
+                int capacity = petCount << 1;
+                petNames = Arrays.copyOf(petNames, capacity);
+                petTypes = Arrays.copyOf(petTypes, capacity);
+                petAges = Arrays.copyOf(petAges, capacity);
+                petOwners = Arrays.copyOf(petOwners, capacity);
+            }
+            int index = petCount++;
+            petNames[index] = code(pet.getName());
+            petTypes[index] = (byte) pet.getType().ordinal();
+            petAges[index] = pet.getAge();
+            petOwners[index] = owner;
+        }
+
+        private int code(String name) {
+            return nameCodes.computeIfAbsent(name, added -> {
+                names.add(added);
+                return names.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Binary snapshot of people and parks, read in place from a {@link ByteBuffer} or a memory-mapped file.
+ * <p/>
+ * A snapshot holds, after a header:
+ * <ul>
+ * <li>person records: first and last name ids, the number of pets, then per pet its type as a byte, its name id
+ * and its age, as varints</li>
+ * <li>park records: name id, the number of authorized pet types, then each type as a byte</li>
+ * <li>the offsets of the person and of the park records</li>
+ * <li>a string table: every distinct first, last, pet and park name once, as UTF-8 bytes behind an offset array</li>
+ * </ul>
+ * {@link PersonCursor} and {@link ParkCursor} read records without creating any object but the names asked for,
+ * each of them being decoded once per snapshot. {@link #toPeople()} and {@link #toParks()} decode everything.
+ * <p/>
+ * A file is mapped as a single buffer, so a snapshot is limited to 2GB.
+ */
+public final class PetSnapshot {
+    private static final PetType[] PET_TYPES = PetType.values();
+
+    private static final int MAGIC = 0x50455453;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int STRING_COUNT = 8;
+    private static final int PERSON_COUNT = 12;
+    private static final int PARK_COUNT = 16;
+    private static final int STRING_TABLE = 20;
+    private static final int PERSON_INDEX = 24;
+    private static final int PARK_INDEX = 28;
+
+    private final ByteBuffer buffer;
+    private final int personCount;
+    private final int parkCount;
+    private final int stringOffsets;
+    private final int stringBytes;
+    private final int personIndex;
+    private final int parkIndex;
+    // Decoded names by id, filled on first access; a racy fill only decodes a name twice
+    private final String[] strings;
+    private final NamePool names;
+
+    private PetSnapshot(ByteBuffer buffer, NamePool names) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " pet snapshot");
+        }
+        this.buffer = buffer;
+        this.names = names;
+        this.strings = new String[buffer.getInt(STRING_COUNT)];
+        this.personCount = buffer.getInt(PERSON_COUNT);
+        this.parkCount = buffer.getInt(PARK_COUNT);
+        this.stringOffsets = buffer.getInt(STRING_TABLE);
+        this.stringBytes = stringOffsets + (strings.length + 1) * 4;
+        this.personIndex = buffer.getInt(PERSON_INDEX);
+        this.parkIndex = buffer.getInt(PARK_INDEX);
+    }
+
+    /**
+     * Reads a snapshot in place: the buffer must not be modified while the snapshot is in use.
+     */
+    public static PetSnapshot wrap(ByteBuffer buffer) throws IOException {
+        return wrap(buffer, NamePool.none());
+    }
+
+    /**
+     * As {@link #wrap(ByteBuffer)}, interning the decoded names with the pool to share them across snapshots.
+     */
+    public static PetSnapshot wrap(ByteBuffer buffer, NamePool names) throws IOException {
+        return new PetSnapshot(buffer.slice(), names);
+    }
+
+    public static PetSnapshot open(Path file) throws IOException {
+        return open(file, NamePool.none());
+    }
+
+    /**
+     * As {@link #open(Path)}, interning the decoded names with the pool to share them across snapshots.
+     */
+    public static PetSnapshot open(Path file, NamePool names) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            return new PetSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), names);
+        }
+    }
+
+    public static ByteBuffer encode(Iterable<Person> people, Iterable<Park> parks) {
+        return new Encoder().encode(people, parks);
+    }
+
+    /**
+     * Writes a snapshot to the file, replacing any existing one.
+     */
+    public static void write(Path file, Iterable<Person> people, Iterable<Park> parks) throws IOException {
+        ByteBuffer snapshot = encode(people, parks);
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+        }
+    }
+
+    public int personCount() {
+        return personCount;
+    }
+
+    public int parkCount() {
+        return parkCount;
+    }
+
+    public PersonCursor people() {
+        return new PersonCursor();
+    }
+
+    public ParkCursor parks() {
+        return new ParkCursor();
+    }
+
+    public Seq<Person> toPeople() {
+        PopulationBuilder population = new PopulationBuilder(personCount);
+        PersonCursor cursor = people();
+        for (int person = 0; person < personCount; person++) {
+            population.add(cursor.moveTo(person).toPerson());
+        }
+        return population.build();
+    }
+
+    public Seq<Park> toParks() {
+        ParkCursor cursor = parks();
+        return Vector.range(0, parkCount).map(park -> cursor.moveTo(park).toPark());
+    }
+
+    private String string(int id) {
+        String string = strings[id];
+        if (string == null) {
+            int start = buffer.getInt(stringOffsets + id * 4);
+            byte[] bytes = new byte[buffer.getInt(stringOffsets + (id + 1) * 4) - start];
+            ByteBuffer source = buffer.duplicate();
+            source.position(stringBytes + start);
+            source.get(bytes);
+            string = names.intern(new String(bytes, StandardCharsets.UTF_8));
+            strings[id] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Reads varints from a position of the snapshot.
+     */
+    private class Reader {
+        int position;
+
+        PetType petType() {
+            return PET_TYPES[buffer.get(position++)];
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        int zigZag() {
+            int value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /**
+     * Flyweight over the person records: {@link #moveTo(int)} a person, then read its names and iterate its pets
+     * with {@link #nextPet()}. A cursor is not thread-safe, use one per thread.
+     */
+    public final class PersonCursor {
+        private final Reader reader = new Reader();
+        private int firstName;
+        private int lastName;
+        private int petCount;
+        private int petsStart;
+        private int remainingPets;
+        private PetType petType;
+        private int petName;
+        private int petAge;
+
+        private PersonCursor() {
+        }
+
+        public PersonCursor moveTo(int person) {
+            if (person < 0 || person >= personCount) {
+                throw new IndexOutOfBoundsException("No person " + person + " in a snapshot of " + personCount);
+            }
+            reader.position = buffer.getInt(personIndex + person * 4);
+            firstName = reader.varint();
+            lastName = reader.varint();
+            petCount = reader.varint();
+            petsStart = reader.position;
+            return rewindPets();
+        }
+
+        public String firstName() {
+            return string(firstName);
+        }
+
+        public String lastName() {
+            return string(lastName);
+        }
+
+        public int petCount() {
+            return petCount;
+        }
+
+        /**
+         * Restarts the pet iteration of the current person.
+         */
+        public PersonCursor rewindPets() {
+            reader.position = petsStart;
+            remainingPets = petCount;
+            return this;
+        }
+
+        /**
+         * Moves to the next pet of the current person, returning false when there is none left.
+         */
+        public boolean nextPet() {
+            if (remainingPets == 0) {
+                return false;
+            }
+            remainingPets--;
+            petType = reader.petType();
+            petName = reader.varint();
+            petAge = reader.zigZag();
+            return true;
+        }
+
+        public PetType petType() {
+            return petType;
+        }
+
+        public String petName() {
+            return string(petName);
+        }
+
+        public int petAge() {
+            return petAge;
+        }
+
+        /**
+         * Bitmask of the pet types, as {@link Person#getPetTypeMask()}; restarts the pet iteration.
+         */
+        public int petTypeMask() {
+            int mask = 0;
+            rewindPets();
+            while (nextPet()) {
+                mask |= petType.bit();
+            }
+            rewindPets();
+            return mask;
+        }
+
+        public Person toPerson() {
+            Person.Builder person = Person.builder(firstName(), lastName());
+            rewindPets();
+            while (nextPet()) {
+                person.pet(petType, petName(), petAge);
+            }
+            return person.build();
+        }
+    }
+
+    /**
+     * Flyweight over the park records. A cursor is not thread-safe, use one per thread.
+     */
+    public final class ParkCursor {
+        private final Reader reader = new Reader();
+        private int name;
+        private int authorizedPetTypeMask;
+        private int authorizedPetTypeCount;
+        private PetType[] authorizedPetTypes = new PetType[PET_TYPES.length];
+
+        private ParkCursor() {
+        }
+
+        public ParkCursor moveTo(int park) {
+            if (park < 0 || park >= parkCount) {
+                throw new IndexOutOfBoundsException("No park " + park + " in a snapshot of " + parkCount);
+            }
+            reader.position = buffer.getInt(parkIndex + park * 4);
+            name = reader.varint();
+            authorizedPetTypeCount = reader.varint();
+            if (authorizedPetTypes.length < authorizedPetTypeCount) {
+                authorizedPetTypes = new PetType[authorizedPetTypeCount];
+            }
+            authorizedPetTypeMask = 0;
+            for (int type = 0; type < authorizedPetTypeCount; type++) {
+                authorizedPetTypes[type] = reader.petType();
+                authorizedPetTypeMask |= authorizedPetTypes[type].bit();
+            }
+            return this;
+        }
+
+        public String name() {
+            return string(name);
+        }
+
+        public int authorizedPetTypeMask() {
+            return authorizedPetTypeMask;
+        }
+
+        /**
+         * Whether every pet type of the person is authorized here, as {@link Park#welcomes(Person)}.
+         */
+        public boolean welcomes(PersonCursor person) {
+            return (person.petTypeMask() & ~authorizedPetTypeMask) == 0;
+        }
+
+        public Park toPark() {
+            return new Park(name(), Vector.of(Arrays.copyOf(authorizedPetTypes, authorizedPetTypeCount)));
+        }
+    }
+
+    /**
+     * Lays out a snapshot in a growing heap buffer.
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> stringIds = new LinkedHashMap<>();
+        private byte[] bytes = new byte[4096];
+        private int size;
+
+        ByteBuffer encode(Iterable<Person> people, Iterable<Park> parks) {
+            size = HEADER_SIZE;
+            int[] personOffsets = new int[16];
+            int personCount = 0;
+            for (Person person : people) {
+                if (personCount == personOffsets.length) {
+                    personOffsets = Arrays.copyOf(personOffsets, personCount << 1);
+                }
+                personOffsets[personCount++] = size;
+                varint(stringId(person.getFirstName()));
+                varint(stringId(person.getLastName()));
+                varint(person.getNumberOfPets());
+                for (Pet pet : person.getPets()) {
+                    put((byte) pet.getType().ordinal());
+                    varint(stringId(pet.getName()));
+                    varint((pet.getAge() << 1) ^ (pet.getAge() >> 31));
+                }
+            }
+            int[] parkOffsets = new int[16];
+            int parkCount = 0;
+            for (Park park : parks) {
+                if (parkCount == parkOffsets.length) {
+                    parkOffsets = Arrays.copyOf(parkOffsets, parkCount << 1);
+                }
+                parkOffsets[parkCount++] = size;
+                varint(stringId(park.getName()));
+                varint(park.getAuthorizedPetTypes().size());
+                for (PetType type : park.getAuthorizedPetTypes()) {
+                    put((byte) type.ordinal());
+                }
+            }
+
+            int personIndex = size;
+            ints(personOffsets, personCount);
+            int parkIndex = size;
+            ints(parkOffsets, parkCount);
+            int stringTable = size;
+            byte[][] strings = new byte[stringIds.size()][];
+            int[] stringOffsets = new int[strings.length + 1];
+            int id = 0;
+            for (String string : stringIds.keySet()) {
+                strings[id] = string.getBytes(StandardCharsets.UTF_8);
+                stringOffsets[id + 1] = stringOffsets[id] + strings[id].length;
+                id++;
+            }
+            ints(stringOffsets, stringOffsets.length);
+            for (byte[] string : strings) {
+                ensureCapacity(string.length);
+                System.arraycopy(string, 0, bytes, size, string.length);
+                size += string.length;
+            }
+
+            return ByteBuffer.wrap(bytes, 0, size)
+                    .putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(STRING_COUNT, strings.length)
+                    .putInt(PERSON_COUNT, personCount)
+                    .putInt(PARK_COUNT, parkCount)
+                    .putInt(STRING_TABLE, stringTable)
+                    .putInt(PERSON_INDEX, personIndex)
+                    .putInt(PARK_INDEX, parkIndex);
+        }
+
+        private int stringId(String string) {
+            return stringIds.computeIfAbsent(string, ignored -> stringIds.size());
+        }
+
+        private void put(byte b) {
+            ensureCapacity(1);
+            bytes[size++] = b;
+        }
+
+        private void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            put((byte) value);
+        }
+
+        private void ints(int[] values, int count) {
+            ensureCapacity(count * 4);
+            ByteBuffer target = ByteBuffer.wrap(bytes, size, count * 4);
+            for (int i = 0; i < count; i++) {
+                target.putInt(values[i]);
+            }
+            size += count * 4;
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + length, bytes.length << 1));
+            }
+        }
+    }
+}
@@ -1,5 +1,26 @@
 package com.bil.katas.vavr.exercises;
 
 public enum PetType {
-    CAT, DOG, HAMSTER, TURTLE, BIRD, SNAKE
+    CAT, DOG, HAMSTER, TURTLE, BIRD, SNAKE;
+
+    private static final PetType[] VALUES = values();
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int mask(Iterable<PetType> petTypes) {
+        int mask = 0;
+        for (PetType petType : petTypes) {
+            mask |= petType.bit();
+        }
+        return mask;
+    }
+
+    /**
+     * Number of distinct masks, masks are in {@code [0, maskCount())}.
+     */
+    public static int maskCount() {
+        return 1 << VALUES.length;
+    }
 }
@@ -0,0 +1,57 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gathers people in a mutable buffer, {@link #build()} freezes them into a {@link Vector} at once instead of
+ * appending them one by one.
+ */
+public class PopulationBuilder {
+    private final List<Person> people;
+    private final NamePool names;
+
+    public PopulationBuilder() {
+        this(16);
+    }
+
+    public PopulationBuilder(int expectedSize) {
+        this(expectedSize, NamePool.none());
+    }
+
+    /**
+     * A builder whose {@link #person(String, String)} builders intern names with the pool.
+     */
+    public PopulationBuilder(int expectedSize, NamePool names) {
+        this.people = new ArrayList<>(expectedSize);
+        this.names = names;
+    }
+
+    /**
+     * A builder for a person of the population, to be {@link #add(Person) added} once built.
+     */
+    public Person.Builder person(String firstName, String lastName) {
+        return Person.builder(firstName, lastName, names);
+    }
+
+    public PopulationBuilder add(Person person) {
+        people.add(person);
+        return this;
+    }
+
+    public PopulationBuilder addAll(Iterable<Person> people) {
+        people.forEach(this.people::add);
+        return this;
+    }
+
+    public int size() {
+        return people.size();
+    }
+
+    public Seq<Person> build() {
+        return Vector.ofAll(people);
+    }
+}
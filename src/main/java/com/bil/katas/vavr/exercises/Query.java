@@ -0,0 +1,155 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Lazy query over a sequence: operations only record a step, and the whole pipeline runs as a single pass when
+ * a terminal operation is called.
+ * <p/>
+ * Each element is pushed through every step before the next one is read, so no intermediate collection is built,
+ * and {@link #find(Predicate)}, {@link #exists(Predicate)}, {@link #forAll(Predicate)} and {@link #limit(int)}
+ * stop reading the source as soon as the answer is known. A query can be run any number of times.
+ * <pre>
+ * Query.of(people).flatMap(Person::getPets).map(Pet::getType).distinct().toSeq();
+ * </pre>
+ * Use {@link ParallelQuery} to split a large source across threads instead.
+ */
+public final class Query<T> {
+    private final Source<T> source;
+
+    private Query(Source<T> source) {
+        this.source = source;
+    }
+
+    public static <T> Query<T> of(Iterable<? extends T> items) {
+        return new Query<>(sink -> {
+            for (T item : items) {
+                if (!sink.accept(item)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    public Query<T> filter(Predicate<? super T> predicate) {
+        return new Query<>(sink -> source.push(item -> !predicate.test(item) || sink.accept(item)));
+    }
+
+    public <U> Query<U> map(Function<? super T, ? extends U> mapper) {
+        return new Query<>(sink -> source.push(item -> sink.accept(mapper.apply(item))));
+    }
+
+    public <U> Query<U> flatMap(Function<? super T, ? extends Iterable<? extends U>> mapper) {
+        return new Query<>(sink -> source.push(item -> {
+            for (U mapped : mapper.apply(item)) {
+                if (!sink.accept(mapped)) {
+                    return false;
+                }
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Keeps the first occurrence of each element, as {@link Seq#distinct()}.
+     */
+    public Query<T> distinct() {
+        return new Query<>(sink -> {
+            Set<T> seen = new HashSet<>();
+            return source.push(item -> !seen.add(item) || sink.accept(item));
+        });
+    }
+
+    public Query<T> limit(int size) {
+        return new Query<>(sink -> {
+            if (size <= 0) {
+                return false;
+            }
+            int[] taken = {0};
+            return source.push(item -> sink.accept(item) && ++taken[0] < size);
+        });
+    }
+
+    public Seq<T> toSeq() {
+        List<T> result = new ArrayList<>();
+        source.push(result::add);
+        return Vector.ofAll(result);
+    }
+
+    public int count() {
+        int[] count = {0};
+        source.push(item -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    public Option<T> find(Predicate<? super T> predicate) {
+        List<T> found = new ArrayList<>(1);
+        source.push(item -> {
+            if (predicate.test(item)) {
+                found.add(item);
+                return false;
+            }
+            return true;
+        });
+        return found.isEmpty() ? Option.none() : Option.some(found.get(0));
+    }
+
+    public boolean exists(Predicate<? super T> predicate) {
+        boolean[] found = {false};
+        source.push(item -> {
+            found[0] = predicate.test(item);
+            return !found[0];
+        });
+        return found[0];
+    }
+
+    public boolean forAll(Predicate<? super T> predicate) {
+        boolean[] matched = {true};
+        source.push(item -> {
+            matched[0] = predicate.test(item);
+            return matched[0];
+        });
+        return matched[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    public <U> U foldLeft(U zero, BiFunction<? super U, ? super T, ? extends U> combine) {
+        Object[] accumulator = {zero};
+        source.push(item -> {
+            accumulator[0] = combine.apply((U) accumulator[0], item);
+            return true;
+        });
+        return (U) accumulator[0];
+    }
+
+    /**
+     * Receives elements, returning false when it needs no more.
+     */
+    @FunctionalInterface
+    private interface Sink<T> {
+        boolean accept(T item);
+    }
+
+    /**
+     * Pushes every element to the sink, returning false when it stopped early, because the sink asked to or
+     * because a step such as {@link #limit(int)} needed no more: terminals must not read it as their own answer.
+     */
+    @FunctionalInterface
+    private interface Source<T> {
+        boolean push(Sink<? super T> sink);
+    }
+}
@@ -0,0 +1,179 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Map;
+import io.vavr.collection.Vector;
+import io.vavr.concurrent.Future;
+import io.vavr.control.Try;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AccountServiceTest {
+    private static final UUID BUD_SPENCER = UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88125");
+    private static final UUID TERRENCE_HILL = UUID.fromString("37651306-4e7e-11ea-b77f-2e728ce88125");
+    private static final UUID UNKNOWN_USER = UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88121");
+
+    private final ConcurrentLinkedQueue<UUID> successes = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<UUID> failures = new ConcurrentLinkedQueue<>();
+    private AccountService accountService;
+
+    @Before
+    public void setup() {
+        accountService = new AccountService(new UserService(), new TwitterService(), businessLogger());
+    }
+
+    private BusinessLogger businessLogger() {
+        return new BusinessLogger() {
+            @Override
+            public void logSuccessRegister(UUID id) {
+                successes.add(id);
+            }
+
+            @Override
+            public void logFailureRegister(UUID id, RegistrationFailure failure) {
+                failures.add(id);
+            }
+
+            @Override
+            public void logFailureUpdateTwitterAccountId(UUID id, RegistrationFailure failure) {
+            }
+        };
+    }
+
+    @Test
+    public void register_all_should_return_a_result_per_distinct_user_in_order() {
+        Map<UUID, Try<String>> results = accountService.registerAll(
+                Vector.of(BUD_SPENCER, UNKNOWN_USER, TERRENCE_HILL, BUD_SPENCER));
+
+        Assert.assertEquals(Vector.of(BUD_SPENCER, UNKNOWN_USER, TERRENCE_HILL), results.keySet().toVector());
+        Assert.assertEquals(Try.success("TweetUrl"), results.get(BUD_SPENCER).get());
+        Assert.assertEquals(Try.success("TweetUrl"), results.get(TERRENCE_HILL).get());
+        Assert.assertEquals(RegistrationFailure.of(RegistrationError.UNKNOWN_USER), results.get(UNKNOWN_USER).get().getCause());
+        Assert.assertEquals(Vector.of(BUD_SPENCER, TERRENCE_HILL), Vector.ofAll(successes));
+        Assert.assertEquals(Vector.of(UNKNOWN_USER), Vector.ofAll(failures));
+    }
+
+    @Test
+    public void register_async_should_complete_with_the_tweet_url_or_the_failure() {
+        Future<String> budSpencer = accountService.registerAsync(BUD_SPENCER);
+        Future<String> unknown = accountService.registerAsync(UNKNOWN_USER);
+
+        Assert.assertEquals(Try.success("TweetUrl"), budSpencer.await().getValue().get());
+        Assert.assertEquals(RegistrationFailure.of(RegistrationError.UNKNOWN_USER), unknown.await().getValue().get().getCause());
+        Assert.assertEquals(Vector.of(BUD_SPENCER), Vector.ofAll(successes));
+        Assert.assertEquals(Vector.of(UNKNOWN_USER), Vector.ofAll(failures));
+    }
+
+    @Test
+    public void concurrent_registrations_of_a_same_user_should_share_a_single_twitter_flow() throws Exception {
+        CountDownLatch registering = new CountDownLatch(1);
+        CountDownLatch answer = new CountDownLatch(1);
+        AtomicInteger twitterRegistrations = new AtomicInteger();
+        AccountService accountService = new AccountService(new UserService(), new TwitterService() {
+            @Override
+            public String register(String email, String name) {
+                twitterRegistrations.incrementAndGet();
+                registering.countDown();
+                Try.run(answer::await);
+                return super.register(email, name);
+            }
+        }, businessLogger(), RegistrationExecutors.shared(), RegistrationMetrics.NONE, AccountService.recentRegistrations());
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        java.util.concurrent.Future<String> first = callers.submit(() -> accountService.register(BUD_SPENCER));
+        registering.await();
+        java.util.concurrent.Future<String> duplicate = callers.submit(() -> accountService.register(BUD_SPENCER));
+        Thread.sleep(50);
+        answer.countDown();
+
+        Assert.assertEquals("TweetUrl", first.get());
+        Assert.assertEquals("TweetUrl", duplicate.get());
+        Assert.assertEquals(1, twitterRegistrations.get());
+        callers.shutdown();
+    }
+
+    @Test
+    public void only_successful_registrations_should_be_kept_within_the_window() {
+        AccountService accountService = new AccountService(new UserService(), new TwitterService(), businessLogger(),
+                RegistrationExecutors.shared(), RegistrationMetrics.NONE, new ExpiringCache<>(100, 1, TimeUnit.MINUTES));
+
+        Assert.assertEquals("TweetUrl", accountService.register(BUD_SPENCER));
+        Assert.assertEquals("TweetUrl", accountService.register(BUD_SPENCER));
+        Assert.assertNull(accountService.register(UNKNOWN_USER));
+        Assert.assertNull(accountService.register(UNKNOWN_USER));
+
+        Assert.assertEquals(Vector.of(BUD_SPENCER), Vector.ofAll(successes));
+        Assert.assertEquals(Vector.of(UNKNOWN_USER, UNKNOWN_USER), Vector.ofAll(failures));
+    }
+
+    @Test(timeout = 5_000)
+    public void an_interrupted_registration_should_fail_and_be_retried() {
+        AtomicInteger twitterRegistrations = new AtomicInteger();
+        AccountService accountService = new AccountService(new UserService(), new TwitterService() {
+            @Override
+            public String register(String email, String name) {
+                if (twitterRegistrations.incrementAndGet() == 1) {
+                    // As a blocking client interrupted through vavr would
+                    Try.run(() -> {
+                        throw new InterruptedException();
+                    });
+                }
+                return super.register(email, name);
+            }
+        }, businessLogger());
+
+        Assert.assertNull(accountService.register(BUD_SPENCER));
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertEquals("TweetUrl", accountService.register(BUD_SPENCER));
+        Assert.assertEquals("TweetUrl", accountService.register(BUD_SPENCER));
+
+        Assert.assertEquals(2, twitterRegistrations.get());
+        Assert.assertEquals(Vector.of(BUD_SPENCER), Vector.ofAll(failures));
+        Assert.assertEquals(Vector.of(BUD_SPENCER), Vector.ofAll(successes));
+    }
+
+    @Test
+    public void twitter_failures_should_be_typed_and_stackless() {
+        IllegalStateException twitterIsDown = new IllegalStateException("Twitter is down");
+        AccountService accountService = new AccountService(new UserService(), new TwitterService() {
+            @Override
+            public String tweet(String token, String message) {
+                throw twitterIsDown;
+            }
+        }, businessLogger());
+
+        Throwable failure = accountService.registerAsync(BUD_SPENCER).await().getValue().get().getCause();
+
+        Assert.assertEquals(RegistrationError.TWEET_FAILED, ((RegistrationFailure) failure).getError());
+        Assert.assertSame(twitterIsDown, failure.getCause());
+        Assert.assertEquals(0, failure.getStackTrace().length);
+        Assert.assertEquals(Vector.of(BUD_SPENCER), Vector.ofAll(failures));
+    }
+
+    @Test
+    public void register_async_should_fail_instead_of_running_on_the_caller_when_saturated() throws InterruptedException {
+        ExecutorService saturated = RegistrationExecutors.bounded(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        saturated.execute(() -> Try.run(release::await));
+        saturated.execute(() -> Try.run(release::await));
+        AccountService accountService = new AccountService(new UserService(), new TwitterService(), businessLogger(),
+                saturated, RegistrationMetrics.NONE, AccountService.recentRegistrations());
+
+        Future<String> registration = accountService.registerAsync(BUD_SPENCER);
+        release.countDown();
+        saturated.shutdown();
+
+        Assert.assertTrue(registration.isCompleted());
+        Assert.assertTrue(registration.getCause().get() instanceof RejectedExecutionException);
+        Assert.assertTrue(successes.isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Vector;
+import io.vavr.control.Try;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncBusinessLoggerTest {
+
+    @Test
+    public void every_event_should_be_written_when_blocking_on_overflow() throws Exception {
+        Path file = Files.createTempFile("business", ".log");
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+
+        try (AsyncBusinessLogger logger = new AsyncBusinessLogger(file, 64, AsyncBusinessLogger.Overflow.BLOCK)) {
+            for (int producer = 0; producer < 4; producer++) {
+                producers.execute(() -> Vector.range(0, 5_000).forEach(i -> logger.logSuccessRegister(UUID.randomUUID())));
+            }
+            producers.shutdown();
+            Assert.assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+            logger.logFailureRegister(new UUID(0, 1),
+                    RegistrationFailure.of(RegistrationError.TWEET_FAILED, new IllegalStateException("Twitter is down")));
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        Assert.assertEquals(20_000, lines.stream().filter(line -> line.startsWith("SUCCESS ")).count());
+        Assert.assertTrue(lines.contains("FAILURE 00000000-0000-0000-0000-000000000001 TWEET_FAILED java.lang.IllegalStateException: Twitter is down"));
+        Assert.assertTrue(lines.stream().anyMatch(line -> line.startsWith("\tat " + AsyncBusinessLoggerTest.class.getName())));
+        Files.delete(file);
+    }
+
+    @Test
+    public void events_should_be_counted_as_dropped_after_close() throws Exception {
+        Path file = Files.createTempFile("business", ".log");
+        AsyncBusinessLogger logger = new AsyncBusinessLogger(file, 16, AsyncBusinessLogger.Overflow.DROP);
+        logger.logSuccessRegister(new UUID(0, 1));
+        logger.close();
+
+        logger.logSuccessRegister(new UUID(0, 2));
+
+        Assert.assertEquals(1, logger.written());
+        Assert.assertEquals(1, logger.dropped());
+        Files.delete(file);
+    }
+
+    /**
+     * Failure whose cause stalls or breaks the writer formatting it.
+     */
+    private static RegistrationFailure failure(Runnable onFormat) {
+        return RegistrationFailure.of(RegistrationError.TWEET_FAILED, new IllegalStateException() {
+            @Override
+            public String toString() {
+                onFormat.run();
+                return "stalled";
+            }
+        });
+    }
+
+    @Test
+    public void a_producer_blocked_on_a_full_ring_should_give_up_on_close() throws Exception {
+        Path file = Files.createTempFile("business", ".log");
+        CountDownLatch formatting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncBusinessLogger logger = new AsyncBusinessLogger(file, 2, AsyncBusinessLogger.Overflow.BLOCK);
+        logger.logFailureRegister(new UUID(0, 1), failure(() -> {
+            formatting.countDown();
+            Try.run(release::await);
+        }));
+        formatting.await();
+        logger.logSuccessRegister(new UUID(0, 2));
+
+        Thread blocked = new Thread(() -> logger.logSuccessRegister(new UUID(0, 3)));
+        blocked.start();
+        Thread closing = new Thread(() -> Try.run(logger::close));
+        closing.start();
+        blocked.join(5_000);
+        release.countDown();
+        closing.join(5_000);
+
+        Assert.assertFalse(blocked.isAlive());
+        Assert.assertFalse(closing.isAlive());
+        Assert.assertEquals(1, logger.dropped());
+        Assert.assertEquals(2, logger.written());
+        Files.delete(file);
+    }
+
+    @Test
+    public void an_event_failing_to_be_formatted_should_not_stop_the_writer() throws Exception {
+        Path file = Files.createTempFile("business", ".log");
+        try (AsyncBusinessLogger logger = new AsyncBusinessLogger(file, 16, AsyncBusinessLogger.Overflow.BLOCK)) {
+            logger.logFailureRegister(new UUID(0, 1), failure(() -> {
+                throw new IllegalStateException("Cannot format");
+            }));
+            logger.logSuccessRegister(new UUID(0, 2));
+            logger.close();
+
+            Assert.assertEquals(1, logger.writeFailures());
+            Assert.assertEquals(1, logger.written());
+        }
+
+        Assert.assertEquals(Vector.of("SUCCESS 00000000-0000-0000-0000-000000000002"), Vector.ofAll(Files.readAllLines(file)));
+        Files.delete(file);
+    }
+}
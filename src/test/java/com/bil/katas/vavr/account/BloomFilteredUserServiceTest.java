@@ -0,0 +1,69 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BloomFilteredUserServiceTest {
+    private static final UUID BUD_SPENCER = UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88125");
+    private static final UUID UNKNOWN_USER = UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88121");
+
+    private static User user(int i) {
+        return User.builder().id(new UUID(i * 31L, i)).email("user" + i + "@gmail.com").build();
+    }
+
+    @Test
+    public void known_ids_should_always_be_found_and_few_unknown_ones_looked_up() {
+        UserRepository repository = UserRepository.ofAll(Vector.range(0, 100_000).map(BloomFilteredUserServiceTest::user));
+        BloomFilteredUserService userService = BloomFilteredUserService.of(repository, 0.01);
+
+        Vector.range(0, 100_000).forEach(i -> Assert.assertEquals(Option.some(user(i)), userService.find(new UUID(i * 31L, i))));
+        Vector.range(0, 100_000).forEach(i -> Assert.assertEquals(Option.none(), userService.find(new UUID(-i - 1, i))));
+
+        BloomFilter.Stats stats = userService.stats();
+        double falsePositiveRate = 1 - stats.getDefiniteMisses() / 100_000.0;
+        Assert.assertTrue("False positive rate " + falsePositiveRate, falsePositiveRate < 0.015);
+        Assert.assertEquals(100_000, stats.getInsertions());
+        Assert.assertTrue(stats.getEstimatedFalsePositiveRate() < 0.011);
+        Assert.assertTrue(stats.getMemoryBytes() < 128 * 1024);
+        Assert.assertTrue(stats.definiteMissRate() > 0.45);
+    }
+
+    @Test
+    public void users_put_through_the_service_should_be_found() {
+        BloomFilteredUserService userService = BloomFilteredUserService.of(UserRepository.of(user(0)), 0.01);
+
+        userService.put(user(1));
+
+        Assert.assertEquals(Option.some(user(1)), userService.find(user(1).getId()));
+        Assert.assertEquals(user(1), userService.findByEmail("user1@gmail.com"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void users_should_not_be_put_without_a_repository() {
+        new BloomFilteredUserService(new UserService(), Vector.of(BUD_SPENCER), 1_000, 0.001).put(user(1));
+    }
+
+    @Test
+    public void account_service_should_reject_definite_misses_without_calling_the_store() {
+        AtomicInteger storeLookups = new AtomicInteger();
+        UserService store = new UserService() {
+            @Override
+            public Option<User> find(UUID id) {
+                storeLookups.incrementAndGet();
+                return super.find(id);
+            }
+        };
+        BloomFilteredUserService userService = new BloomFilteredUserService(store, Vector.of(BUD_SPENCER), 1_000, 0.001);
+        AccountService accountService = new AccountService(userService, new TwitterService(), new BusinessLoggerImpl());
+
+        Assert.assertNull(accountService.register(UNKNOWN_USER));
+        Assert.assertEquals(0, storeLookups.get());
+        Assert.assertEquals("TweetUrl", accountService.register(BUD_SPENCER));
+        Assert.assertEquals(1, storeLookups.get());
+    }
+}
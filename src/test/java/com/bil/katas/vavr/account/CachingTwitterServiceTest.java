@@ -0,0 +1,142 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Vector;
+import io.vavr.concurrent.Future;
+import io.vavr.control.Try;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingTwitterServiceTest {
+    private final AtomicInteger authentications = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+
+    private final TwitterService upstream = new TwitterService() {
+        @Override
+        public String authenticate(String email, String password) {
+            return "token-" + email + "-" + authentications.incrementAndGet();
+        }
+    };
+
+    private CachingTwitterService cachingService(int maximumSize) {
+        return new CachingTwitterService(upstream, new ExpiringCache<>(maximumSize, 10, TimeUnit.SECONDS, now::get));
+    }
+
+    @Test
+    public void tokens_should_be_reused_until_they_expire() {
+        CachingTwitterService twitterService = cachingService(10);
+
+        Assert.assertEquals("token-bud-1", twitterService.authenticate("bud", "pwd"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        Assert.assertEquals("token-bud-1", twitterService.authenticate("bud", "pwd"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assert.assertEquals("token-bud-2", twitterService.authenticate("bud", "pwd"));
+
+        Assert.assertEquals(new ExpiringCache.Stats(1, 2, 0, 1, 0), twitterService.stats());
+    }
+
+    @Test
+    public void a_different_password_should_not_reuse_the_token() {
+        CachingTwitterService twitterService = cachingService(10);
+
+        twitterService.authenticate("bud", "pwd");
+        twitterService.authenticate("bud", "other");
+
+        Assert.assertEquals(2, authentications.get());
+    }
+
+    @Test
+    public void least_recently_used_tokens_should_be_evicted() {
+        CachingTwitterService twitterService = cachingService(2);
+
+        twitterService.authenticate("bud", "pwd");
+        twitterService.authenticate("terrence", "pwd");
+        twitterService.authenticate("bud", "pwd");
+        twitterService.authenticate("jake", "pwd");
+        twitterService.authenticate("bud", "pwd");
+        twitterService.authenticate("terrence", "pwd");
+
+        Assert.assertEquals(4, authentications.get());
+        Assert.assertEquals(2, twitterService.stats().getEvictions());
+    }
+
+    @Test
+    public void concurrent_authentications_should_share_one_upstream_call() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TwitterService slowUpstream = new TwitterService() {
+            @Override
+            public String authenticate(String email, String password) {
+                Try.run(release::await);
+                return "token-" + authentications.incrementAndGet();
+            }
+        };
+        CachingTwitterService twitterService = new CachingTwitterService(slowUpstream, 10, 1, TimeUnit.MINUTES);
+
+        ExecutorService callers = RegistrationExecutors.bounded(8, 8);
+
+        Vector<Future<String>> tokens = Vector.range(0, 8)
+                .map(i -> Future.of(callers, () -> twitterService.authenticate("bud", "pwd")));
+        Thread.sleep(100);
+        release.countDown();
+
+        Assert.assertEquals(Vector.fill(8, "token-1"), tokens.map(token -> token.await().get()));
+        Assert.assertEquals(1, authentications.get());
+        callers.shutdown();
+    }
+
+    @Test
+    public void a_load_completed_after_a_miss_should_not_be_repeated() throws Exception {
+        ExpiringCache<Object, String> cache = new ExpiringCache<>(10, 1, TimeUnit.MINUTES);
+        CountDownLatch missed = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        // Equal to "bud", pausing between its cache miss and its load claim, each hashing it once
+        Object slowKey = new Object() {
+            private int hashes;
+
+            @Override
+            public int hashCode() {
+                if (++hashes == 2) {
+                    missed.countDown();
+                    Try.run(loaded::await);
+                }
+                return "bud".hashCode();
+            }
+
+            @Override
+            public boolean equals(Object other) {
+                return other == this || "bud".equals(other);
+            }
+        };
+        Future<String> slow = Future.of(() -> cache.get(slowKey, () -> "token-" + authentications.incrementAndGet()));
+        missed.await();
+
+        Assert.assertEquals("token-1", cache.get("bud", () -> "token-" + authentications.incrementAndGet()));
+        loaded.countDown();
+
+        Assert.assertEquals("token-1", slow.await().get());
+        Assert.assertEquals(1, authentications.get());
+    }
+
+    @Test(timeout = 5_000)
+    public void a_load_interrupted_should_be_released_for_the_next_call() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1, TimeUnit.MINUTES);
+
+        Exception interrupted = null;
+        try {
+            cache.get("bud", () -> {
+                throw new InterruptedException();
+            });
+        } catch (Exception e) {
+            interrupted = e;
+        }
+
+        Assert.assertTrue(interrupted instanceof InterruptedException);
+        Assert.assertEquals("token-1", cache.get("bud", () -> "token-" + authentications.incrementAndGet()));
+        Assert.assertEquals(1, cache.stats().getLoadFailures());
+    }
+}
@@ -0,0 +1,74 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Vector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+public class HistogramRegistrationMetricsTest {
+    private static final UUID BUD_SPENCER = UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88125");
+    private static final UUID UNKNOWN_USER = UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88121");
+
+    @Test
+    public void histogram_buckets_should_bound_the_relative_error() {
+        Vector.of(0L, 1L, 63L, 64L, 65L, 1_000L, 123_456_789L, Long.MAX_VALUE).forEach(value -> {
+            long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+            Assert.assertTrue(highest >= value);
+            Assert.assertTrue(highest - value <= value / 32);
+        });
+    }
+
+    @Test
+    public void percentiles_should_be_read_from_the_recorded_values() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Vector.rangeClosed(1, 1000).forEach(histogram::record);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        Assert.assertEquals(1000, snapshot.getCount());
+        Assert.assertEquals(500.5, snapshot.mean(), 0.001);
+        Assert.assertEquals(500, snapshot.percentile(50), 500 / 32);
+        Assert.assertEquals(990, snapshot.percentile(99), 990 / 32);
+        Assert.assertEquals(1000, snapshot.percentile(100));
+    }
+
+    @Test
+    public void every_registration_stage_should_be_recorded() {
+        HistogramRegistrationMetrics metrics = new HistogramRegistrationMetrics();
+        AccountService accountService = new AccountService(
+                new UserService(), new TwitterService(), new BusinessLoggerImpl(), RegistrationExecutors.shared(), metrics,
+                AccountService.recentRegistrations());
+
+        accountService.register(BUD_SPENCER);
+        accountService.register(UNKNOWN_USER);
+
+        Assert.assertEquals(2, metrics.snapshot(RegistrationStage.GET_USER).getCalls());
+        Assert.assertEquals(1, metrics.snapshot(RegistrationStage.GET_USER).getFailures());
+        Vector.of(RegistrationStage.REGISTER_ON_TWITTER, RegistrationStage.AUTHENTICATE_ON_TWITTER,
+                RegistrationStage.TWEET, RegistrationStage.UPDATE_TWITTER_ACCOUNT_ID)
+                .forEach(stage -> {
+                    Assert.assertEquals(1, metrics.snapshot(stage).getCalls());
+                    Assert.assertEquals(0, metrics.snapshot(stage).getFailures());
+                });
+    }
+
+    @Test
+    public void stages_should_be_exposed_through_jmx() throws Exception {
+        HistogramRegistrationMetrics metrics = new HistogramRegistrationMetrics();
+        metrics.record(RegistrationStage.TWEET, 1_000, false);
+
+        ObjectName name = metrics.registerMBean().get();
+        try {
+            CompositeData[] stages = (CompositeData[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Stages");
+            CompositeData tweet = Vector.of(stages).find(stage -> "TWEET".equals(stage.get("stage"))).get();
+            Assert.assertEquals(1L, tweet.get("failures"));
+            Assert.assertEquals(1_000L, tweet.get("maxNanos"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+
+public class MappedUserServiceTest {
+    private Path directory;
+
+    private static User user(int i) {
+        return User.builder()
+                .id(new UUID(i * 31L, i))
+                .email("user" + i + "@gmail.com")
+                .name("Usér " + i)
+                .password("password" + i)
+                .build();
+    }
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("users");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void users_should_be_found_by_id_and_email() throws IOException {
+        try (MappedUserService userService = MappedUserService.create(directory, Vector.range(0, 5_000).map(MappedUserServiceTest::user))) {
+            Assert.assertEquals(5_000, userService.size());
+            Vector.range(0, 5_000).forEach(i -> {
+                Assert.assertEquals(user(i), userService.findById(new UUID(i * 31L, i)));
+                Assert.assertEquals(user(i), userService.findByEmail("user" + i + "@gmail.com"));
+            });
+            Assert.assertEquals(Vector.of(user(3)), userService.findAllById(Vector.of(new UUID(3 * 31L, 3), new UUID(0, -1))).values());
+            Assert.assertEquals(Vector.range(0, 5_000).map(i -> user(i).getId()), userService.ids().toVector());
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void an_unknown_id_should_throw() throws IOException {
+        try (MappedUserService userService = MappedUserService.create(directory, Vector.of(user(1)))) {
+            userService.findById(new UUID(0, -1));
+        }
+    }
+
+    @Test
+    public void twitter_account_ids_should_survive_a_reopen() throws IOException {
+        MappedUserService.create(directory, Vector.range(0, 10).map(MappedUserServiceTest::user)).close();
+
+        try (MappedUserService userService = MappedUserService.open(directory)) {
+            Assert.assertEquals(Option.none(), userService.getTwitterAccountId(user(4).getId()));
+            userService.updateTwitterAccountId(user(4).getId(), "first");
+            userService.updateTwitterAccountId(user(4).getId(), "TwitterAccountId");
+        }
+        try (MappedUserService userService = MappedUserService.open(directory)) {
+            Assert.assertEquals(Option.some("TwitterAccountId"), userService.getTwitterAccountId(user(4).getId()));
+            Assert.assertEquals(user(4), userService.findById(user(4).getId()));
+        }
+    }
+
+    @Test
+    public void a_torn_log_entry_should_be_ignored_on_replay() throws IOException {
+        MappedUserService.create(directory, Vector.range(0, 10).map(MappedUserServiceTest::user)).close();
+        try (MappedUserService userService = MappedUserService.open(directory)) {
+            userService.updateTwitterAccountId(user(2).getId(), "complete");
+        }
+        try (FileChannel log = FileChannel.open(directory.resolve(MappedUserService.LOG_FILE), APPEND)) {
+            log.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        }
+
+        try (MappedUserService userService = MappedUserService.open(directory)) {
+            userService.updateTwitterAccountId(user(3).getId(), "after");
+        }
+        try (MappedUserService userService = MappedUserService.open(directory)) {
+            Assert.assertEquals(Option.some("complete"), userService.getTwitterAccountId(user(2).getId()));
+            Assert.assertEquals(Option.some("after"), userService.getTwitterAccountId(user(3).getId()));
+        }
+    }
+
+    @Test
+    public void a_log_larger_than_a_chunk_should_be_replayed_then_emptied() throws IOException {
+        MappedUserService.create(directory, Vector.range(0, 10).map(MappedUserServiceTest::user)).close();
+        Assert.assertEquals(0, Files.size(directory.resolve(MappedUserService.LOG_FILE)));
+        ByteBuffer entries = ByteBuffer.allocate(5_000 * 26);
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = user(i % 10).getId();
+            entries.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).putInt(6).put(String.format("id%04d", i).getBytes());
+        }
+        entries.flip();
+        try (FileChannel log = FileChannel.open(directory.resolve(MappedUserService.LOG_FILE), APPEND)) {
+            log.write(entries);
+        }
+
+        try (MappedUserService userService = MappedUserService.open(directory)) {
+            Assert.assertEquals(0, Files.size(directory.resolve(MappedUserService.LOG_FILE)));
+            Assert.assertEquals(Option.some("id4999"), userService.getTwitterAccountId(user(9).getId()));
+            Assert.assertEquals(Option.some("id4990"), userService.getTwitterAccountId(user(0).getId()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void a_file_which_is_not_a_store_should_be_rejected() throws IOException {
+        MappedUserService.create(directory, Vector.of(user(1))).close();
+        Files.write(directory.resolve(MappedUserService.DATA_FILE), new byte[64]);
+
+        MappedUserService.open(directory);
+    }
+}
@@ -0,0 +1,184 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.control.Try;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResilientTwitterServiceTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stub answering after the given latency, failing the first calls.
+     */
+    private TwitterService twitter(long latencyMillis, int failures) {
+        return new TwitterService() {
+            @Override
+            public String register(String email, String name) {
+                return answer(super.register(email, name));
+            }
+
+            @Override
+            public String authenticate(String email, String password) {
+                return answer(super.authenticate(email, password));
+            }
+
+            private String answer(String answer) {
+                int call = calls.incrementAndGet();
+                Try.run(() -> Thread.sleep(call == 1 ? latencyMillis : 0)).get();
+                if (call <= failures) {
+                    throw new IllegalStateException("Twitter is down");
+                }
+                return answer;
+            }
+        };
+    }
+
+    private ResilientTwitterService resilient(TwitterService twitter, ResiliencePolicy.ResiliencePolicyBuilder policy) {
+        return new ResilientTwitterService(twitter, policy.retryBackoff(Duration.ofMillis(1)).build(), executor);
+    }
+
+    @Test
+    public void slow_calls_should_time_out() {
+        TwitterService twitter = resilient(twitter(1_000, 0), ResiliencePolicy.builder().timeout(Duration.ofMillis(50)));
+
+        Try<String> registration = Try.of(() -> twitter.register("bud.spencer@gmail.com", "Bud Spencer"));
+
+        Assert.assertTrue(registration.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    public void only_idempotent_stages_should_be_retried() {
+        TwitterService twitter = resilient(twitter(0, 2), ResiliencePolicy.builder().maxAttempts(3));
+
+        Assert.assertEquals("ATwitterToken", twitter.authenticate("bud.spencer@gmail.com", "password"));
+        Assert.assertEquals(3, calls.getAndSet(0));
+
+        Assert.assertTrue(Try.of(() -> resilient(twitter(0, 1), ResiliencePolicy.builder())
+                .register("bud.spencer@gmail.com", "Bud Spencer")).isFailure());
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void a_slow_call_should_be_hedged() {
+        TwitterService twitter = resilient(twitter(1_000, 0), ResiliencePolicy.builder().hedgeDelay(Duration.ofMillis(20)));
+
+        long start = System.nanoTime();
+        Assert.assertEquals("ATwitterToken", twitter.authenticate("bud.spencer@gmail.com", "password"));
+
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void calls_should_be_rejected_when_the_bulkhead_is_full() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        ResilientTwitterService twitter = resilient(new TwitterService() {
+            @Override
+            public String tweet(String token, String message) {
+                Try.run(blocked::await);
+                return super.tweet(token, message);
+            }
+        }, ResiliencePolicy.builder().maxConcurrentCalls(1));
+        executor.execute(() -> twitter.tweet("ATwitterToken", "Hello"));
+        while (twitter.availableCalls() > 0) {
+            Thread.sleep(1);
+        }
+
+        Try<String> tweet = Try.of(() -> twitter.tweet("ATwitterToken", "Hello"));
+        blocked.countDown();
+
+        Assert.assertTrue(tweet.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void an_interrupted_call_should_fail_without_throwing_the_interrupt() {
+        TwitterService twitter = resilient(twitter(1_000, 0), ResiliencePolicy.builder());
+
+        Thread.currentThread().interrupt();
+        Try<String> registration = Try.of(() -> twitter.register("bud.spencer@gmail.com", "Bud Spencer"));
+
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertTrue(registration.getCause() instanceof RejectedExecutionException);
+        Assert.assertTrue(registration.getCause().getCause() instanceof InterruptedException);
+    }
+
+    @Test
+    public void calls_above_the_rate_limit_should_be_rejected() {
+        TwitterService twitter = resilient(twitter(0, 0), ResiliencePolicy.builder()
+                .permitsPerSecond(1)
+                .burst(1)
+                .rateLimitTimeout(Duration.ZERO));
+
+        Assert.assertEquals("TwitterAccountId", twitter.register("bud.spencer@gmail.com", "Bud Spencer"));
+        Try<String> registration = Try.of(() -> twitter.register("terrence.hill@gmail.com", "Terrence Hill"));
+
+        Assert.assertTrue(registration.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void the_default_executor_should_run_as_many_calls_as_the_bulkhead_allows() throws InterruptedException {
+        ExecutorService calls = ResilientTwitterService.callExecutor(ResiliencePolicy.builder().maxConcurrentCalls(4).build());
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int call = 0; call < 4; call++) {
+                calls.execute(() -> {
+                    started.countDown();
+                    Try.run(release::await);
+                });
+            }
+
+            Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            calls.shutdown();
+        }
+    }
+
+    @Test
+    public void a_timed_out_call_should_hold_its_permit_until_twitter_answers() throws InterruptedException {
+        CountDownLatch answer = new CountDownLatch(1);
+        ResilientTwitterService twitter = resilient(new TwitterService() {
+            @Override
+            public String authenticate(String email, String password) {
+                calls.incrementAndGet();
+                while (answer.getCount() > 0) {
+                    try {
+                        answer.await();
+                    } catch (InterruptedException e) {
+                        // Ignored, as a blocking client may
+                    }
+                }
+                return super.authenticate(email, password);
+            }
+        }, ResiliencePolicy.builder().maxConcurrentCalls(1).maxAttempts(3).timeout(Duration.ofMillis(50)));
+
+        // The retry after the timeout finds the bulkhead full and is not retried itself
+        Try<String> authentication = Try.of(() -> twitter.authenticate("bud.spencer@gmail.com", "password"));
+        Assert.assertTrue(authentication.getCause() instanceof RejectedExecutionException);
+        Assert.assertEquals(0, twitter.availableCalls());
+        Assert.assertEquals(1, calls.get());
+
+        answer.countDown();
+        while (twitter.availableCalls() == 0) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals("ATwitterToken", twitter.authenticate("bud.spencer@gmail.com", "password"));
+    }
+}
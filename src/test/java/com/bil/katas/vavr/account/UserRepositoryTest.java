@@ -0,0 +1,65 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+public class UserRepositoryTest {
+    private static User user(int i) {
+        return User.builder()
+                .id(new UUID(i * 31L, i))
+                .email("user" + i + "@gmail.com")
+                .name("User " + i)
+                .password("password" + i)
+                .build();
+    }
+
+    @Test
+    public void find_users_by_id_and_email_after_many_resizes() {
+        UserRepository repository = UserRepository.empty();
+        Vector.range(0, 10_000).map(UserRepositoryTest::user).forEach(repository::put);
+
+        Assert.assertEquals(10_000, repository.size());
+        Vector.range(0, 10_000).forEach(i -> {
+            Assert.assertEquals(user(i), repository.findById(new UUID(i * 31L, i)));
+            Assert.assertEquals(user(i), repository.findByEmail("user" + i + "@gmail.com"));
+        });
+        Assert.assertEquals(Option.some(user(7)), repository.find(new UUID(7 * 31L, 7)));
+        Assert.assertEquals(Option.none(), repository.find(new UUID(0, -1)));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void find_an_unknown_id_should_throw() {
+        UserRepository.of(user(1)).findById(new UUID(0, 0));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void find_an_unknown_email_should_throw() {
+        UserRepository.of(user(1)).findByEmail("nobody@gmail.com");
+    }
+
+    @Test
+    public void put_an_existing_id_should_replace_the_user_and_its_email() {
+        UserRepository repository = UserRepository.ofAll(Vector.range(0, 100).map(UserRepositoryTest::user));
+        User renamed = User.builder()
+                .id(user(42).getId())
+                .email("renamed@gmail.com")
+                .name("Renamed")
+                .password("password")
+                .build();
+
+        repository.put(renamed);
+
+        Assert.assertEquals(100, repository.size());
+        Assert.assertEquals(renamed, repository.findById(renamed.getId()));
+        Assert.assertEquals(renamed, repository.findByEmail("renamed@gmail.com"));
+        Assert.assertTrue(Try.of(() -> repository.findByEmail("user42@gmail.com")).isFailure());
+        Vector.range(0, 100).filter(i -> i != 42)
+                .forEach(i -> Assert.assertEquals(user(i), repository.findByEmail("user" + i + "@gmail.com")));
+    }
+}
@@ -0,0 +1,140 @@
+package com.bil.katas.vavr.account;
+
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBehindUserServiceTest {
+    private static final UUID BUD_SPENCER = UUID.fromString("376510ae-4e7e-11ea-b77f-2e728ce88125");
+    private static final UUID TERRENCE_HILL = UUID.fromString("37651306-4e7e-11ea-b77f-2e728ce88125");
+    private static final UUID UNKNOWN_USER = new UUID(0, 1);
+
+    private final List<Map<UUID, String>> batches = new CopyOnWriteArrayList<>();
+    private final java.util.Map<UUID, String> saved = new java.util.concurrent.ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<UUID> failures = new ConcurrentLinkedQueue<>();
+
+    private final UserService store = new UserService() {
+        @Override
+        public void updateTwitterAccountId(UUID id, String twitterAccountId) {
+            if (id.equals(UNKNOWN_USER)) {
+                throw new IllegalArgumentException("No user with id " + id);
+            }
+            saved.put(id, twitterAccountId);
+        }
+
+        @Override
+        public void updateTwitterAccountIds(Map<UUID, String> twitterAccountIds) {
+            batches.add(twitterAccountIds);
+            super.updateTwitterAccountIds(twitterAccountIds);
+        }
+    };
+
+    private final BusinessLogger businessLogger = new BusinessLogger() {
+        @Override
+        public void logSuccessRegister(UUID id) {
+        }
+
+        @Override
+        public void logFailureRegister(UUID id, RegistrationFailure failure) {
+        }
+
+        @Override
+        public void logFailureUpdateTwitterAccountId(UUID id, RegistrationFailure failure) {
+            failures.add(id);
+        }
+    };
+
+    @Test
+    public void updates_of_a_same_user_should_be_coalesced_in_a_single_batch() {
+        try (WriteBehindUserService userService = new WriteBehindUserService(store, businessLogger, 2, 1, TimeUnit.HOURS)) {
+            userService.updateTwitterAccountId(BUD_SPENCER, "first");
+            userService.updateTwitterAccountId(BUD_SPENCER, "second");
+            Assert.assertEquals(1, userService.pendingUpdates());
+            userService.updateTwitterAccountId(TERRENCE_HILL, "third");
+            userService.flush();
+        }
+
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(LinkedHashMap.of(BUD_SPENCER, "second", TERRENCE_HILL, "third"), batches.get(0));
+    }
+
+    @Test
+    public void pending_updates_should_be_flushed_when_the_interval_elapses() throws InterruptedException {
+        try (WriteBehindUserService userService = new WriteBehindUserService(store, businessLogger, 100, 10, TimeUnit.MILLISECONDS)) {
+            userService.updateTwitterAccountId(BUD_SPENCER, "TwitterAccountId");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!saved.containsKey(BUD_SPENCER) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+        Assert.assertEquals("TwitterAccountId", saved.get(BUD_SPENCER));
+    }
+
+    @Test
+    public void only_failing_updates_of_a_batch_should_be_reported() {
+        WriteBehindUserService userService = new WriteBehindUserService(store, businessLogger, 100, 1, TimeUnit.HOURS);
+        userService.updateTwitterAccountId(UNKNOWN_USER, "lost");
+        userService.updateTwitterAccountId(TERRENCE_HILL, "TwitterAccountId");
+        userService.close();
+
+        Assert.assertEquals("TwitterAccountId", saved.get(TERRENCE_HILL));
+        Assert.assertEquals(1, failures.size());
+        Assert.assertEquals(UNKNOWN_USER, failures.peek());
+    }
+
+    @Test
+    public void updates_should_wait_for_a_flush_once_the_store_falls_behind() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        UserService slowStore = new UserService() {
+            @Override
+            public void updateTwitterAccountIds(Map<UUID, String> twitterAccountIds) {
+                batches.add(twitterAccountIds);
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // Ignored, as a blocking store may
+                    }
+                }
+                twitterAccountIds.forEach(saved::put);
+            }
+        };
+        WriteBehindUserService userService = new WriteBehindUserService(slowStore, businessLogger, 2, 1, TimeUnit.HOURS);
+        userService.updateTwitterAccountId(new UUID(1, 1), "1");
+        userService.updateTwitterAccountId(new UUID(1, 2), "2");
+        while (batches.isEmpty()) {
+            Thread.sleep(1);
+        }
+        for (int update = 3; update <= 5; update++) {
+            userService.updateTwitterAccountId(new UUID(1, update), String.valueOf(update));
+        }
+
+        Thread overflowing = new Thread(() -> userService.updateTwitterAccountId(new UUID(1, 6), "6"));
+        overflowing.start();
+        overflowing.join(100);
+        Assert.assertTrue(overflowing.isAlive());
+        Assert.assertEquals(4, userService.pendingUpdates());
+
+        release.countDown();
+        overflowing.join();
+        userService.close();
+        Assert.assertEquals(6, saved.size());
+        Assert.assertEquals(2, batches.size());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void updates_should_be_rejected_once_closed() {
+        WriteBehindUserService userService = new WriteBehindUserService(store, businessLogger, 100, 1, TimeUnit.HOURS);
+        userService.close();
+        userService.updateTwitterAccountId(BUD_SPENCER, "TwitterAccountId");
+    }
+}
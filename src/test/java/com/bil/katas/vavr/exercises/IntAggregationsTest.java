@@ -0,0 +1,90 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+
+import static com.bil.katas.vavr.exercises.IntAggregations.*;
+
+public class IntAggregationsTest extends PetDomainKata {
+
+    @Test
+    public void pet_age_aggregations_should_match_boxed_ones() {
+        Seq<Pet> pets = people.flatMap(Person::getPets);
+
+        Assert.assertEquals(OptionalInt.of(1), minInt(pets, Pet::getAge));
+        Assert.assertEquals(OptionalInt.of(4), maxInt(pets, Pet::getAge));
+        Assert.assertEquals(pets.map(Pet::getAge).sum().longValue(), sumInt(pets, Pet::getAge));
+        Assert.assertEquals(pets.map(Pet::getAge).average().get(), averageInt(pets, Pet::getAge).getAsDouble(), 1e-9);
+        Assert.assertEquals(pets.minBy(Pet::getAge), argMinInt(pets, Pet::getAge));
+        Assert.assertEquals(pets.maxBy(Pet::getAge), argMaxInt(pets, Pet::getAge));
+    }
+
+    @Test
+    public void empty_sources_should_have_no_aggregate() {
+        Assert.assertEquals(OptionalInt.empty(), minInt(Vector.<Pet>empty(), Pet::getAge));
+        Assert.assertEquals(OptionalDouble.empty(), averageInt(Vector.<Pet>empty(), Pet::getAge));
+        Assert.assertEquals(Option.none(), argMaxInt(Vector.<Pet>empty(), Pet::getAge));
+        Assert.assertEquals(Option.none(), youngestPetOwner(Vector.of(new Person("John", "Doe"))));
+        Assert.assertEquals(OptionalInt.empty(), percentileInt(Vector.<Pet>empty(), Pet::getAge, 50));
+    }
+
+    @Test
+    public void youngest_and_oldest_pet_owners_should_ignore_people_without_pets() {
+        Assert.assertEquals(Option.some(getPersonNamed("Jake Snake")), youngestPetOwner(people));
+        Assert.assertEquals(Option.some(getPersonNamed("Ted Smith")), oldestPetOwner(people));
+    }
+
+    @Test
+    public void histogram_and_percentiles_of_pet_ages() {
+        Seq<Pet> pets = people.flatMap(Person::getPets);
+
+        Assert.assertArrayEquals(new int[]{0, 4, 3, 1, 1}, histogram(pets, Pet::getAge));
+        Assert.assertEquals(OptionalInt.of(1), percentileInt(pets, Pet::getAge, 10));
+        Assert.assertEquals(OptionalInt.of(2), percentileInt(pets, Pet::getAge, 50));
+        Assert.assertEquals(OptionalInt.of(4), percentileInt(pets, Pet::getAge, 100));
+        int[] grown = histogram(Vector.of(40), Integer::intValue);
+        Assert.assertEquals(41, grown.length);
+        Assert.assertEquals(1, grown[40]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void a_histogram_should_reject_values_above_its_bound() {
+        histogram(Vector.of(1, Integer.MAX_VALUE), Integer::intValue);
+    }
+
+    @Test
+    public void percentiles_of_large_values_should_be_computed_without_a_histogram() {
+        Vector<Integer> values = Vector.of(1, Integer.MAX_VALUE, 5, 1_000_000_000);
+
+        Assert.assertEquals(OptionalInt.of(5), percentileInt(values, Integer::intValue, 50));
+        Assert.assertEquals(OptionalInt.of(Integer.MAX_VALUE), percentileInt(values, Integer::intValue, 100));
+    }
+
+    @Test
+    public void percentiles_should_be_exact_once_counted_values_are_spilled() {
+        Vector<Integer> values = Vector.range(0, 100).append(5_000).appendAll(Vector.range(100, 199));
+
+        Assert.assertEquals(OptionalInt.of(99), percentileInt(values, Integer::intValue, 50));
+        Assert.assertEquals(OptionalInt.of(198), percentileInt(values, Integer::intValue, 99.5));
+        Assert.assertEquals(OptionalInt.of(5_000), percentileInt(values, Integer::intValue, 100));
+    }
+
+    @Test
+    public void percentiles_out_of_range_should_be_rejected() {
+        Vector<Integer> values = Vector.of(1, 2, 3);
+        for (double percentile : new double[]{Double.NaN, 0, -1, 100.5}) {
+            try {
+                percentileInt(values, Integer::intValue, percentile);
+                Assert.fail("Accepted percentile " + percentile);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+}
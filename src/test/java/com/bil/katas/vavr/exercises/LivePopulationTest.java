@@ -0,0 +1,95 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.Tuple;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.collection.Seq;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.Vector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static com.bil.katas.vavr.exercises.PetType.*;
+
+public class LivePopulationTest extends PetDomainKata {
+
+    private static Map<PetType, Integer> petCounts(Iterable<Person> people) {
+        return Vector.ofAll(people).flatMap(Person::getPets).groupBy(Pet::getType).mapValues(Seq::size);
+    }
+
+    private static Map<Person, Integer> counts(Iterable<Person> people) {
+        return Vector.ofAll(people).groupBy(person -> person).mapValues(Seq::size);
+    }
+
+    @Test
+    public void views_should_follow_additions_removals_and_new_pets() {
+        LivePopulation population = new LivePopulation(people.tail());
+        PeopleView<Map<PetType, Integer>> counts = population.register(PeopleView.petCounts());
+        PeopleView<Map<PetType, Map<Person, Integer>>> owners = population.register(PeopleView.ownersByPetType());
+        PeopleView<SortedMap<Integer, Map<Person, Integer>>> ages = population.register(PeopleView.ownersByPetAge());
+        Assert.assertEquals(petCounts(people.tail()), counts.snapshot());
+
+        population.add(people.head());
+        Person bob = getPersonNamed("Bob Smith");
+        Person olderBob = population.addPet(bob, BIRD, "Polly", 12);
+        Person terry = getPersonNamed("Terry Turtle");
+        Assert.assertTrue(population.remove(terry));
+
+        Seq<Person> expected = people.remove(bob).remove(terry).append(olderBob);
+        Assert.assertEquals(counts(expected), population.people());
+        Assert.assertEquals(petCounts(expected), counts.snapshot());
+        Assert.assertEquals(HashMap.of(getPersonNamed("Mary Smith"), 1, olderBob, 1), owners.snapshot().get(CAT).get());
+        Assert.assertFalse(owners.snapshot().containsKey(TURTLE));
+        Assert.assertEquals(1, (int) ages.snapshot().head()._1);
+        Assert.assertEquals(HashMap.of(getPersonNamed("Jake Snake"), 1, getPersonNamed("Harry Hamster"), 1), ages.snapshot().head()._2);
+        Assert.assertEquals(Tuple.of(12, HashMap.of(olderBob, 1)), ages.snapshot().last());
+    }
+
+    @Test
+    public void equal_people_should_be_counted_instead_of_collapsed() {
+        Person john = Person.builder("John", "Smith").build();
+        LivePopulation population = new LivePopulation(Vector.of(john, john));
+        PeopleView<Map<PetType, Map<Person, Integer>>> owners = population.register(PeopleView.ownersByPetType());
+
+        Person johnWithCat = population.addPet(john, CAT, "Kitty", 1);
+        population.add(johnWithCat);
+        Assert.assertEquals(HashMap.of(john, 1, johnWithCat, 2), population.people());
+        Assert.assertEquals(HashMap.of(johnWithCat, 2), owners.snapshot().get(CAT).get());
+
+        Assert.assertTrue(population.remove(johnWithCat));
+        Assert.assertEquals(HashMap.of(johnWithCat, 1), owners.snapshot().get(CAT).get());
+        Assert.assertTrue(population.remove(john));
+        Assert.assertFalse(population.remove(john));
+        Assert.assertEquals(HashMap.of(johnWithCat, 1), population.people());
+    }
+
+    @Test
+    public void a_snapshot_should_not_change_once_read() {
+        LivePopulation population = new LivePopulation(people);
+        PeopleView<Map<PetType, Integer>> counts = population.register(PeopleView.petCounts());
+        Map<PetType, Integer> before = counts.snapshot();
+
+        population.addPet(getPersonNamed("John Doe"), CAT, "Kitty", 1);
+
+        Assert.assertEquals(petCounts(people), before);
+        Assert.assertEquals(before.get(CAT).get() + 1, (int) counts.snapshot().get(CAT).get());
+    }
+
+    @Test
+    public void unregistered_views_should_no_longer_be_updated() {
+        LivePopulation population = new LivePopulation(people);
+        PeopleView<Map<PetType, Integer>> counts = population.register(PeopleView.petCounts());
+        population.unregister(counts);
+
+        population.remove(getPersonNamed("Bob Smith"));
+
+        Assert.assertEquals(petCounts(people), counts.snapshot());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void replacing_a_person_out_of_the_population_should_fail() {
+        new LivePopulation().addPet(getPersonNamed("Bob Smith"), CAT, "Kitty", 1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Comparator;
+
+import static com.bil.katas.vavr.exercises.PetType.*;
+
+public class ParallelQueryTest extends PetDomainKata {
+    private static final PetType[] PET_TYPES = PetType.values();
+
+    private Seq<Person> population(int size) {
+        return Vector.range(0, size).map(i -> {
+            Person person = new Person("First" + i, "Last" + (i % 100));
+            for (int pet = 0; pet < i % 4; pet++) {
+                person = person.addPet(PET_TYPES[(i + pet) % PET_TYPES.length], "Pet" + pet, 1 + (i * 7 + pet) % 15);
+            }
+            return person;
+        });
+    }
+
+    @Test
+    public void small_sources_should_give_the_sequential_results() {
+        Assert.assertEquals(
+                Vector.of(CAT, DOG, SNAKE, BIRD, TURTLE, HAMSTER),
+                ParallelQuery.of(people).flatMap(Person::getPets).map(Pet::getType).distinct().toSeq());
+        Assert.assertEquals(2, ParallelQuery.of(people).count(person -> person.hasPetType(CAT)));
+    }
+
+    @Test
+    public void split_evaluation_should_give_the_sequential_results() {
+        Seq<Person> people = population(10_000);
+        ParallelQuery<Person> query = ParallelQuery.of(people).withThreshold(64);
+        Comparator<Person> byPetCount = Comparator.comparing(Person::getNumberOfPets);
+
+        Assert.assertEquals(people.filter(Person::isPetPerson), query.filter(Person::isPetPerson).toSeq());
+        Assert.assertEquals(people.map(Person::fullName), query.map(Person::fullName).toSeq());
+        Assert.assertEquals(
+                people.flatMap(Person::getPets).map(Pet::getAge).distinct(),
+                query.flatMap(Person::getPets).map(Pet::getAge).distinct().toSeq());
+        Assert.assertEquals(people.count(person -> person.hasPetType(DOG)), query.count(person -> person.hasPetType(DOG)));
+        Assert.assertEquals(people.groupBy(Person::getLastName), query.groupBy(Person::getLastName));
+        Assert.assertSame(people.minBy(byPetCount).get(), query.minBy(byPetCount).get());
+        Assert.assertSame(people.maxBy(byPetCount).get(), query.maxBy(byPetCount).get());
+    }
+}
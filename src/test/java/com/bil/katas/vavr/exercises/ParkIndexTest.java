@@ -0,0 +1,39 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Vector;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParkIndexTest extends PetDomainKata {
+
+    @Test
+    public void parks_for_a_person_should_authorize_all_of_its_pet_types() {
+        ParkIndex index = ParkIndex.of(parks);
+
+        Assert.assertEquals(Vector.of("Jurassic", "Central", "Hippy"), index.parksFor(getPersonNamed("John Doe")).map(Park::getName));
+        Assert.assertEquals(Vector.of("Jurassic", "Hippy"), index.parksFor(getPersonNamed("Jake Snake")).map(Park::getName));
+        Assert.assertEquals(Vector.of("Central", "Hippy"), index.parksFor(getPersonNamed("Bob Smith")).map(Park::getName));
+    }
+
+    @Test
+    public void batch_variants_should_match_the_single_checks() {
+        ParkIndex index = ParkIndex.of(parks);
+
+        index.parksPerPerson(people).forEach((person, parksOfPerson) ->
+                Assert.assertEquals(parks.filter(park -> park.welcomes(person)), parksOfPerson));
+        index.peoplePerPark(people).forEach((park, peopleOfPark) ->
+                Assert.assertEquals(people.filter(park::welcomes), peopleOfPark));
+        Assert.assertEquals(
+                Vector.of("Mary", "Bob", "Ted", "Barry", "John"),
+                index.peopleFor(parks.get(1), people).map(Person::getFirstName));
+    }
+
+    @Test
+    public void park_mask_should_follow_authorized_pet_types() {
+        Park park = new Park("Central", Vector.of(PetType.CAT)).addAuthorizedPetType(PetType.DOG);
+
+        Assert.assertEquals(PetType.CAT.bit() | PetType.DOG.bit(), park.getAuthorizedPetTypeMask());
+        Assert.assertTrue(park.authorizes(PetType.DOG));
+        Assert.assertFalse(park.authorizes(PetType.SNAKE));
+    }
+}
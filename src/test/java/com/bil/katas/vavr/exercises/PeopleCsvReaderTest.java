@@ -0,0 +1,79 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Seq;
+import io.vavr.collection.Vector;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PeopleCsvReaderTest extends PetDomainKata {
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("people", ".csv");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    private static String line(Person person) {
+        return person.getPets()
+                .map(pet -> pet.getType() + ":" + pet.getName() + ":" + pet.getAge())
+                .prepend(person.getLastName())
+                .prepend(person.getFirstName())
+                .mkString(",");
+    }
+
+    @Test
+    public void people_should_be_read_in_file_order_across_splits() throws IOException {
+        Seq<Person> population = Vector.range(0, 2_000).flatMap(i -> people.map(person ->
+                new Person(person.getFirstName() + i, person.getLastName(), person.getPets())));
+        Files.write(file, population.map(PeopleCsvReaderTest::line), StandardCharsets.UTF_8);
+
+        try (PeopleCsvReader reader = PeopleCsvReader.open(file, 4096, 4)) {
+            Assert.assertEquals(population, reader.people().toVector());
+            Assert.assertEquals(population, reader.toRegistry().toPeople());
+        }
+    }
+
+    @Test
+    public void blank_lines_and_carriage_returns_should_be_ignored() throws IOException {
+        Files.write(file, "Bob,Smith,CAT:Dolly:3,DOG:Spot:2\r\n\r\nJohn,Doe\n\n".getBytes(StandardCharsets.UTF_8));
+
+        try (PeopleCsvReader reader = PeopleCsvReader.open(file, 10, 2)) {
+            Assert.assertEquals(Vector.of(getPersonNamed("Bob Smith"), getPersonNamed("John Doe")), reader.people().toVector());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void a_malformed_line_should_fail_the_iteration() throws IOException {
+        Files.write(file, "Bob,Smith,CAT:Dolly\n".getBytes(StandardCharsets.UTF_8));
+
+        try (PeopleCsvReader reader = PeopleCsvReader.open(file)) {
+            reader.people().toVector();
+        }
+    }
+
+    @Test
+    public void names_should_be_shared_through_the_pool_of_the_reader() throws IOException {
+        Files.write(file, "Bob,Smith,CAT:Dolly:3\nJohn,Smith,CAT:Dolly:2\n".getBytes(StandardCharsets.UTF_8));
+        NamePool names = new NamePool();
+
+        try (PeopleCsvReader reader = PeopleCsvReader.open(file, 10, 2, names)) {
+            Seq<Person> people = reader.people().toVector();
+
+            Assert.assertSame(people.get(0).getLastName(), people.get(1).getLastName());
+            Assert.assertSame(people.get(0).getPets().head().getName(), people.get(1).getPets().head().getName());
+            Assert.assertEquals(4, names.size());
+        }
+    }
+}
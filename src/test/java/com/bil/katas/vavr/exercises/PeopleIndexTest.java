@@ -0,0 +1,61 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static com.bil.katas.vavr.exercises.PetType.*;
+
+public class PeopleIndexTest extends PetDomainKata {
+    private PeopleIndex index;
+
+    @Before
+    public void buildIndex() {
+        index = PeopleIndex.of(people);
+    }
+
+    @Test
+    public void people_should_be_found_by_name_and_pet_type() {
+        Assert.assertEquals(Option.some(getPersonNamed("Mary Smith")), index.named("Mary Smith"));
+        Assert.assertEquals(Option.none(), index.named("Mary Poppins"));
+        Assert.assertEquals(people.filter(person -> person.hasPetType(CAT)), index.ownersOf(CAT));
+    }
+
+    @Test
+    public void youngest_and_oldest_pet_owners_should_match_a_scan() {
+        Assert.assertEquals(Option.some(1), index.minPetAge());
+        Assert.assertEquals(Option.some(4), index.maxPetAge());
+        Assert.assertEquals(Option.some(getPersonNamed("Jake Snake")), index.youngestPetOwner());
+        Assert.assertEquals(Option.some(getPersonNamed("Ted Smith")), index.oldestPetOwner());
+        Assert.assertEquals(people.filter(person -> person.getPets().exists(pet -> pet.getAge() == 2)), index.ownersOfPetsAged(2));
+    }
+
+    @Test
+    public void an_updated_person_should_be_indexed_as_if_rebuilt() {
+        Person johnDoe = getPersonNamed("John Doe");
+        Person withPets = johnDoe.addPet(SNAKE, "Kaa", 9).addPet(CAT, "Garfield", 0);
+        Person tedSmith = getPersonNamed("Ted Smith");
+
+        PeopleIndex updated = index.update(johnDoe, withPets).update(tedSmith, new Person("Ted", "Smith"));
+        PeopleIndex rebuilt = PeopleIndex.of(people.replace(johnDoe, withPets).replace(tedSmith, new Person("Ted", "Smith")));
+
+        Assert.assertEquals(rebuilt.people(), updated.people());
+        for (PetType type : PetType.values()) {
+            Assert.assertEquals(rebuilt.ownersOf(type), updated.ownersOf(type));
+        }
+        Assert.assertEquals(Option.some(withPets), updated.youngestPetOwner());
+        Assert.assertEquals(Option.some(withPets), updated.oldestPetOwner());
+        Assert.assertEquals(Vector.empty(), updated.ownersOfPetsAged(4));
+        Assert.assertEquals(Option.some(withPets), updated.named("John Doe"));
+        Assert.assertEquals(people, index.people());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void updating_an_unknown_person_should_fail() {
+        index.update(new Person("Mary", "Poppins"), new Person("Mary", "Poppins").addPet(BIRD, "Robin", 1));
+    }
+}
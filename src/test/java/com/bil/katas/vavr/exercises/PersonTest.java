@@ -0,0 +1,79 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Iterator;
+import io.vavr.collection.Vector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static com.bil.katas.vavr.exercises.PetType.*;
+
+public class PersonTest {
+
+    @Test
+    public void pet_type_summary_should_follow_added_pets() {
+        Person person = new Person("Bob", "Smith")
+                .addPet(CAT, "Dolly", 3)
+                .addPet(DOG, "Spot", 2)
+                .addPet(CAT, "Tabby", 1);
+
+        Assert.assertEquals(HashMap.of(CAT, 2, DOG, 1), person.getPetTypes());
+        Assert.assertSame(person.getPetTypes(), person.getPetTypes());
+        Assert.assertEquals(CAT.bit() | DOG.bit(), person.getPetTypeMask());
+        Assert.assertTrue(person.hasPetType(DOG));
+        Assert.assertFalse(person.hasPetType(SNAKE));
+        Assert.assertEquals(2, person.getNumberOfPets(CAT));
+    }
+
+    @Test
+    public void pet_type_summary_should_be_computed_from_given_pets() {
+        Person built = new Person("Bob", "Smith", Vector.of(new Pet(CAT, "Dolly", 3), new Pet(DOG, "Spot", 2)));
+        Person added = new Person("Bob", "Smith").addPet(CAT, "Dolly", 3).addPet(DOG, "Spot", 2);
+
+        Assert.assertEquals(added, built);
+        Assert.assertEquals(added.getPetTypeMask(), built.getPetTypeMask());
+        Assert.assertEquals(added.getPetTypes(), built.getPetTypes());
+    }
+
+    @Test
+    public void named_should_match_the_full_name_only() {
+        Person person = new Person("Mary", "Smith");
+
+        Assert.assertTrue(person.named("Mary Smith"));
+        Assert.assertFalse(person.named("Mary  Smith"));
+        Assert.assertFalse(person.named("MarySSmith"));
+        Assert.assertFalse(person.named("Mary Smit"));
+        Assert.assertFalse(person.named("Bob Smith"));
+    }
+
+    @Test
+    public void names_should_be_interned_by_the_pool_of_the_builder() {
+        PopulationBuilder population = new PopulationBuilder(2, new NamePool());
+        Person first = population.person(new String("Mary"), new String("Smith")).pet(CAT, new String("Tabby"), 2).build();
+        Person second = population.person(new String("Mary"), new String("Smith")).pet(CAT, new String("Tabby"), 2).build();
+
+        Assert.assertSame(first.getFirstName(), second.getFirstName());
+        Assert.assertSame(first.getLastName(), second.getLastName());
+        Assert.assertSame(first.getPets().head().getName(), second.getPets().head().getName());
+        Assert.assertNotSame(first.getFirstName(), new Person(new String("Mary"), "Smith").getFirstName());
+    }
+
+    @Test
+    public void bulk_built_people_and_parks_should_equal_incrementally_built_ones() {
+        Person added = new Person("Bob", "Smith").addPet(CAT, "Dolly", 3).addPet(DOG, "Spot", 2);
+        Person built = Person.builder("Bob", "Smith").pet(CAT, "Dolly", 3).pets(Vector.of(new Pet(DOG, "Spot", 2))).build();
+        Person withPets = new Person("Bob", "Smith").addPet(CAT, "Dolly", 3).withPets(Vector.of(new Pet(DOG, "Spot", 2)));
+
+        Assert.assertEquals(added, built);
+        Assert.assertEquals(added, withPets);
+        Assert.assertEquals(added.getPetTypeMask(), withPets.getPetTypeMask());
+        Assert.assertEquals(2, built.getNumberOfPets());
+
+        Park park = new Park("Central").withAuthorizedPetTypes(Vector.of(CAT, DOG));
+        Assert.assertEquals(new Park("Central").addAuthorizedPetType(CAT).addAuthorizedPetType(DOG), park);
+        Assert.assertTrue(park.welcomes(built));
+        Assert.assertTrue(new Park("Central").withAuthorizedPetTypes(Iterator.of(CAT, DOG)).welcomes(built));
+
+        Assert.assertEquals(Vector.of(added, built), new PopulationBuilder().add(added).addAll(Vector.of(built)).build());
+    }
+}
@@ -0,0 +1,65 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.HashMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.bil.katas.vavr.exercises.PetType.*;
+
+public class PetRegistryTest extends PetDomainKata {
+    private PetRegistry registry;
+
+    @Before
+    public void buildRegistry() {
+        registry = PetRegistry.of(people);
+    }
+
+    @Test
+    public void registry_should_round_trip_to_people() {
+        Assert.assertEquals(8, registry.personCount());
+        Assert.assertEquals(9, registry.petCount());
+        Assert.assertEquals(people, registry.toPeople());
+    }
+
+    @Test
+    public void names_should_be_stored_once() {
+        // 8 first names, 6 last names (Smith is shared), 9 pet names
+        Assert.assertEquals(23, registry.distinctNameCount());
+    }
+
+    @Test
+    public void compact_names_should_round_trip() {
+        Assert.assertEquals(people, people.foldLeft(PetRegistry.builder().compactNames(), PetRegistry.Builder::add).build().toPeople());
+
+        Person notLatin1 = new Person("Zoë", "Łukasiewicz").addPet(CAT, "Kot", 3);
+        Assert.assertEquals(notLatin1, PetRegistry.builder().compactNames().add(notLatin1).build().person(0));
+    }
+
+    @Test
+    public void count_pets_and_owners_by_type() {
+        Assert.assertEquals(2, registry.countOwners(CAT));
+        Assert.assertEquals(2, registry.countPets(CAT));
+        Assert.assertEquals(1, registry.countOwners(HAMSTER));
+        Assert.assertEquals(2, registry.countPets(HAMSTER));
+        Assert.assertEquals(HashMap.of(CAT, 2, DOG, 2, SNAKE, 1, BIRD, 1, TURTLE, 1, HAMSTER, 2), registry.countByPetType());
+        Assert.assertEquals(HashMap.of(1, 4, 2, 3, 3, 1, 4, 1), registry.countByPetAge());
+    }
+
+    @Test
+    public void filter_pets_and_owners() {
+        Assert.assertArrayEquals(new int[]{0, 1}, registry.filterOwners(CAT));
+        int[] youngCats = registry.filterPets(CAT, age -> age < 3);
+        Assert.assertEquals(1, youngCats.length);
+        Assert.assertEquals("Tabby", registry.pet(youngCats[0]).getName());
+        Assert.assertEquals(2, registry.countPetsByAge(age -> age >= 3));
+    }
+
+    @Test
+    public void youngest_and_oldest_pets() {
+        Assert.assertEquals(Integer.valueOf(1), registry.minPetAge().get());
+        Assert.assertEquals(Integer.valueOf(4), registry.maxPetAge().get());
+        Assert.assertEquals("Jake", registry.youngestPetOwner().get().getFirstName());
+        Assert.assertEquals("Ted", registry.oldestPetOwner().get().getFirstName());
+    }
+}
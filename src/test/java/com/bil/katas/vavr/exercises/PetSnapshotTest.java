@@ -0,0 +1,66 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Vector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PetSnapshotTest extends PetDomainKata {
+
+    @Test
+    public void a_snapshot_file_should_decode_to_the_written_people_and_parks() throws IOException {
+        Path file = Files.createTempFile("pets", ".snapshot");
+        try {
+            PetSnapshot.write(file, people, parks);
+            PetSnapshot snapshot = PetSnapshot.open(file);
+
+            Assert.assertEquals(people.size(), snapshot.personCount());
+            Assert.assertEquals(people, snapshot.toPeople());
+            Assert.assertEquals(parks, snapshot.toParks());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void cursors_should_read_records_in_place() throws IOException {
+        PetSnapshot snapshot = PetSnapshot.wrap(PetSnapshot.encode(people, parks));
+        PetSnapshot.PersonCursor bob = snapshot.people().moveTo(1);
+
+        Assert.assertEquals("Bob", bob.firstName());
+        Assert.assertEquals("Smith", bob.lastName());
+        Assert.assertEquals(2, bob.petCount());
+        Assert.assertEquals(PetType.CAT.bit() | PetType.DOG.bit(), bob.petTypeMask());
+        Assert.assertTrue(bob.nextPet());
+        Assert.assertEquals(PetType.CAT, bob.petType());
+        Assert.assertEquals("Dolly", bob.petName());
+        Assert.assertEquals(3, bob.petAge());
+        Assert.assertTrue(bob.nextPet());
+        Assert.assertEquals("Spot", bob.petName());
+        Assert.assertFalse(bob.nextPet());
+
+        PetSnapshot.ParkCursor central = snapshot.parks().moveTo(1);
+        Assert.assertEquals("Central", central.name());
+        Assert.assertTrue(central.welcomes(bob));
+        Assert.assertFalse(snapshot.parks().moveTo(0).welcomes(bob));
+    }
+
+    @Test
+    public void names_shared_by_records_should_be_stored_once() throws IOException {
+        Person large = Person.builder("Bob", "Smith").pet(PetType.CAT, "Dolly", 300_000).pet(PetType.DOG, "Spot", -2).build();
+        ByteBuffer single = PetSnapshot.encode(Vector.of(large), Vector.empty());
+        ByteBuffer repeated = PetSnapshot.encode(Vector.fill(10, large), Vector.empty());
+
+        Assert.assertTrue(repeated.remaining() - single.remaining() < 9 * 20);
+        Assert.assertEquals(Vector.fill(10, large), PetSnapshot.wrap(repeated).toPeople());
+    }
+
+    @Test(expected = IOException.class)
+    public void a_buffer_which_is_not_a_snapshot_should_be_rejected() throws IOException {
+        PetSnapshot.wrap(ByteBuffer.allocate(64));
+    }
+}
@@ -0,0 +1,59 @@
+package com.bil.katas.vavr.exercises;
+
+import io.vavr.collection.Vector;
+import io.vavr.control.Option;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bil.katas.vavr.exercises.PetType.*;
+
+public class QueryTest extends PetDomainKata {
+
+    @Test
+    public void a_fused_pipeline_should_match_the_eager_one() {
+        Query<PetType> petTypes = Query.of(people).flatMap(Person::getPets).map(Pet::getType).distinct();
+
+        Assert.assertEquals(people.flatMap(Person::getPets).map(Pet::getType).distinct(), petTypes.toSeq());
+        Assert.assertEquals(6, petTypes.count());
+        Assert.assertEquals(petTypes.toSeq(), petTypes.toSeq());
+        Assert.assertEquals(Vector.of("Mary", "Bob"),
+                Query.of(people).filter(person -> person.hasPetType(CAT)).map(Person::getFirstName).toSeq());
+        Assert.assertEquals(Integer.valueOf(17),
+                Query.of(people).flatMap(Person::getPets).foldLeft(0, (sum, pet) -> sum + pet.getAge()));
+    }
+
+    @Test
+    public void short_circuiting_operations_should_stop_reading_the_source() {
+        AtomicInteger read = new AtomicInteger();
+        Query<Person> people = Query.of(this.people).filter(person -> read.incrementAndGet() > 0);
+
+        Assert.assertEquals(Option.some(getPersonNamed("Bob Smith")), people.find(person -> person.hasPetType(DOG)));
+        Assert.assertEquals(2, read.getAndSet(0));
+        Assert.assertTrue(people.exists(person -> person.hasPetType(DOG)));
+        Assert.assertEquals(2, read.getAndSet(0));
+        Assert.assertFalse(people.forAll(Person::isPetPerson));
+        Assert.assertEquals(this.people.size(), read.getAndSet(0));
+        Assert.assertFalse(people.forAll(person -> person.getLastName().equals("Smith")));
+        Assert.assertEquals(4, read.getAndSet(0));
+        Assert.assertEquals(this.people.take(3), people.limit(3).toSeq());
+        Assert.assertEquals(3, read.getAndSet(0));
+        Assert.assertEquals(Vector.empty(), people.limit(0).toSeq());
+        Assert.assertEquals(0, read.get());
+    }
+
+    @Test
+    public void a_reached_limit_should_not_be_read_as_an_answer() {
+        Query<Integer> firstTwo = Query.of(Vector.of(1, 2, 3)).limit(2);
+        Query<Integer> none = Query.of(Vector.of(1, 2, 3)).limit(0);
+
+        Assert.assertFalse(firstTwo.exists(x -> x == 99));
+        Assert.assertTrue(firstTwo.exists(x -> x == 2));
+        Assert.assertFalse(firstTwo.exists(x -> x == 3));
+        Assert.assertTrue(firstTwo.forAll(x -> x > 0));
+        Assert.assertFalse(firstTwo.forAll(x -> x < 2));
+        Assert.assertFalse(none.exists(x -> true));
+        Assert.assertTrue(none.forAll(x -> false));
+    }
+}